@@ -0,0 +1,216 @@
+package io.coronet.slug;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Abstract base for runtime-generated slug implementations that store their
+ * boolean, numeric, and string members in a {@code ByteBuffer} with a
+ * compact binary layout derived from the slug interface, rather than as
+ * objects. Generated getters decode their member on each call, and
+ * generated setters encode it in place. Members of other types, and
+ * undeclared members, are kept in an overflow map.
+ * <p>
+ * A slug created by a box allocates its own (heap) buffer the first time a
+ * member is set; one created by {@link SlugBox#wrap(Class, ByteBuffer)} is
+ * a flyweight over the caller's buffer, which may be direct, and writes go
+ * straight through to it (until a string outgrows the buffer, at which
+ * point the slug moves to a buffer of its own).
+ *
+ * @param <T> the interface type of this slug
+ * @see SlugLayout#BUFFER
+ */
+public abstract class AbstractBufferSlug<T extends Slug<T>>
+        extends AbstractSlotSlug<T> {
+
+    /**
+     * Room for string members, beyond the fixed-width fields, in a newly
+     * allocated buffer.
+     */
+    private static final int INITIAL_SPARE = 32;
+
+    private final SlugShape shape;
+    private final BufferLayout layout;
+    private ByteBuffer buffer;
+    private boolean bufferShared;
+
+    /**
+     * Creates a new slug with no members set.
+     *
+     * @param type the interface type of this slug
+     * @param shape the declared members of this slug type
+     */
+    protected AbstractBufferSlug(Class<T> type, SlugShape shape) {
+        super(type);
+
+        if (shape == null) {
+            throw new NullPointerException("shape");
+        }
+
+        this.shape = shape;
+        this.layout = shape.bufferLayout();
+        this.buffer = null;
+    }
+
+    /**
+     * Creates a new slug initialized with a copy of the given set of members.
+     *
+     * @param type the interface type of this slug
+     * @param shape the declared members of this slug type
+     * @param map the initial set of members for this slug
+     */
+    protected AbstractBufferSlug(
+            Class<T> type,
+            SlugShape shape,
+            Map<String, Object> map) {
+
+        this(type, shape);
+        initialize(map);
+    }
+
+    @Override
+    protected final SlugShape shape() {
+        return shape;
+    }
+
+    @Override
+    protected final Object getSlot(int index) {
+        ByteBuffer b = buffer;
+        if (b == null || !layout.hasField(index) || !layout.isSet(b, index)) {
+            return null;
+        }
+        return layout.read(b, index);
+    }
+
+    @Override
+    protected final boolean setSlot(int index, Object value) {
+        if (!layout.hasField(index)) {
+            return (value == null);
+        }
+
+        if (value == null) {
+            if (buffer != null && layout.isSet(buffer, index)) {
+                writable(0);
+                layout.clear(buffer, index);
+            }
+            return true;
+        }
+
+        if (!layout.fits(index, value)) {
+            return false;
+        }
+
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(layout.fixedSize() + INITIAL_SPARE);
+            layout.initialize(buffer);
+        }
+
+        Object encoded = layout.encode(index, value);
+        writable(layout.extraBytes(buffer, index, encoded));
+        layout.write(buffer, index, encoded);
+        return true;
+    }
+
+    /**
+     * Makes sure this slug has its own buffer, with room for the given
+     * number of bytes past the part that's in use. A new buffer only gets
+     * the live strings, so replaced strings don't pile up; it only grows if
+     * the live part doesn't fit.
+     */
+    private void writable(int extra) {
+        int used = layout.used(buffer);
+        if (bufferShared || used + extra > buffer.capacity()) {
+            int live = layout.liveSize(buffer);
+            int capacity = buffer.capacity();
+            if (live + extra > capacity) {
+                capacity = Math.max(capacity * 2, live + extra);
+            }
+            buffer = layout.compact(buffer, capacity);
+            bufferShared = false;
+        }
+    }
+
+    /**
+     * Reads the declared member in the given slot, falling back to the
+     * overflow map if it isn't stored in the buffer. Called by generated
+     * getters.
+     *
+     * @param index the slot index of the member
+     * @return the current value of the member, or null
+     */
+    protected final Object readSlot(int index) {
+        return getMember(index, shape.getName(index));
+    }
+
+    /**
+     * Writes the declared member in the given slot, or to the overflow map
+     * if it doesn't fit in the buffer. Called by generated setters.
+     *
+     * @param index the slot index of the member
+     * @param value the new value of the member, or null to clear it
+     */
+    protected final void putSlot(int index, Object value) {
+        setMember(index, shape.getName(index), value);
+    }
+
+    @Override
+    protected final void copySlots() {
+        if (buffer != null) {
+            buffer = layout.compact(buffer, buffer.capacity());
+        }
+        bufferShared = false;
+    }
+
+    @Override
+    protected final void shareSlots() {
+        if (buffer != null) {
+            bufferShared = true;
+        }
+    }
+
+    /**
+     * Makes this (new, empty) slug a flyweight over the given buffer, which
+     * must hold a slug of this type encoded by {@link #encoded()}.
+     *
+     * @param b the buffer to read and write members in
+     * @throws IllegalArgumentException if the buffer is corrupt
+     */
+    final void attach(ByteBuffer b) {
+        ByteBuffer slice = b.slice();
+        layout.check(slice);
+        buffer = slice;
+        bufferShared = b.isReadOnly();
+    }
+
+    /**
+     * Returns a read-only view of the encoded members of this slug, which
+     * can be copied elsewhere (off-heap, say) and later wrapped by
+     * {@link #attach(ByteBuffer)}. If strings have been replaced by longer
+     * ones since the buffer was last compacted, returns a compacted copy
+     * instead.
+     *
+     * @return the encoded members of this slug
+     * @throws IllegalStateException if any members are in the overflow map
+     */
+    final ByteBuffer encoded() {
+        if (hasOverflow()) {
+            throw new IllegalStateException(
+                    "Slug has members that can't be encoded: " + this);
+        }
+
+        ByteBuffer b = buffer;
+        if (b == null) {
+            b = ByteBuffer.allocate(layout.fixedSize());
+            layout.initialize(b);
+        } else if (layout.used(b) > layout.liveSize(b)) {
+            // Leave replaced strings out, without moving this slug off its
+            // buffer.
+            int live = layout.liveSize(b);
+            b = layout.compact(b, live);
+        }
+
+        ByteBuffer view = b.asReadOnlyBuffer();
+        view.clear().limit(layout.used(b));
+        return view;
+    }
+}
@@ -0,0 +1,430 @@
+package io.coronet.slug;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Abstract base for runtime-generated slug implementations that can be
+ * shared between threads without external locking. Members are stored in a
+ * {@code ConcurrentHashMap}, so reads never block and writes to different
+ * members rarely contend; {@link ConcurrentSlug} adds atomic
+ * compare-and-set and compute-style updates of single members.
+ * <p>
+ * {@link #makeImmutable()} is a volatile write, so a thread that sees the
+ * slug as immutable also sees every write made before it was frozen.
+ * Writes that race with {@code makeImmutable} may or may not land; writes
+ * that start after it returns always fail.
+ *
+ * @param <T> the interface type of this slug
+ * @see SlugLayout#CONCURRENT
+ */
+public class AbstractConcurrentSlug<T extends Slug<T>>
+        implements Slug<T>, ConcurrentSlug, Cloneable, ChangeTracking {
+
+    private final Class<T> type;
+    private volatile ConcurrentHashMap<String, Object> map;
+    private volatile boolean immutable;
+    private volatile Set<String> changes;
+    private volatile ConvertedMembers conversions;
+
+    // Cached once immutable; zero if not computed yet.
+    private int hash;
+    private volatile long fingerprint;
+
+    /**
+     * Creates a new slug initialized with a copy of the given set of members.
+     *
+     * @param type the interface type of this slug
+     * @param map the initial set of members for this slug
+     */
+    protected AbstractConcurrentSlug(Class<T> type, Map<String, Object> map) {
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+        if (map == null) {
+            throw new NullPointerException("map");
+        }
+
+        ConcurrentHashMap<String, Object> m =
+                new ConcurrentHashMap<>(Math.max(16, map.size() * 2));
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getValue() != null) {
+                m.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        this.type = type;
+        this.map = m;
+    }
+
+    @Override
+    public Class<T> type() {
+        return type;
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T makeImmutable() {
+        immutable = true;
+        return (T) this;
+    }
+
+    /**
+     * Throws if this slug is immutable.
+     */
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("slug is immutable");
+        }
+    }
+
+    private void changed(String member) {
+        Set<String> c = changes;
+        if (c != null) {
+            c.add(member);
+        }
+    }
+
+    @Override
+    public Object get(String member) {
+        return map.get(member);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+        checkMutable();
+
+        if (value == null) {
+            map.remove(member);
+        } else {
+            map.put(member, value);
+        }
+        changed(member);
+
+        return (T) this;
+    }
+
+    @Override
+    public boolean compareAndSet(String member, Object expect, Object update) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+        checkMutable();
+
+        boolean updated;
+        if (expect == null) {
+            updated = (update == null
+                    ? !map.containsKey(member)
+                    : map.putIfAbsent(member, update) == null);
+        } else if (update == null) {
+            updated = map.remove(member, expect);
+        } else {
+            updated = map.replace(member, expect, update);
+        }
+
+        if (updated) {
+            changed(member);
+        }
+        return updated;
+    }
+
+    @Override
+    public Object compute(String member, UnaryOperator<Object> function) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+        if (function == null) {
+            throw new NullPointerException("function");
+        }
+        checkMutable();
+
+        Object[] previous = new Object[1];
+        Object result = map.compute(member, (k, v) -> {
+            previous[0] = v;
+            return function.apply(v);
+        });
+
+        // Returning the current value unchanged isn't a change.
+        if (result != previous[0]) {
+            changed(member);
+        }
+        return result;
+    }
+
+    /**
+     * Converts the raw value of a member to the type declared by its getter,
+     * if it isn't already, and stores the converted value in place of the
+     * raw one (unless another thread has changed it in the meantime) so it's
+     * only converted once. Immutable slugs remember the converted value on
+     * the side instead. Called by generated getters whose return types are
+     * slug interfaces, or lists or maps of them.
+     *
+     * @param member the name of the member
+     * @param value the current value of the member
+     * @return the converted value
+     */
+    protected final Object convertMember(String member, Object value) {
+        if (immutable) {
+            return conversions().convert(type, member, value);
+        }
+
+        Object converted = Conversions.convertMember(type, member, value);
+        if (converted != value) {
+            map.replace(member, value, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Returns the converted values remembered for this slug, creating them
+     * the first time they're needed.
+     */
+    private ConvertedMembers conversions() {
+        ConvertedMembers c = conversions;
+        if (c == null) {
+            c = new ConvertedMembers();
+            conversions = c;
+        }
+        return c;
+    }
+
+    @Override
+    public void trackChanges() {
+        changes = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public Set<String> changes() {
+        Set<String> c = changes;
+        if (c == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(c);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T clearChanges() {
+        checkMutable();
+        Set<String> c = changes;
+        if (c != null) {
+            c.clear();
+        }
+        return (T) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T with(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+
+        AbstractConcurrentSlug<T> copy;
+        try {
+            copy = (AbstractConcurrentSlug<T>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.conversions = null;
+        copy.hash = 0;
+        copy.fingerprint = 0;
+        copy.map = new ConcurrentHashMap<>(map);
+
+        Set<String> c = changes;
+        if (c != null) {
+            Set<String> cc = ConcurrentHashMap.newKeySet();
+            cc.addAll(c);
+            copy.changes = cc;
+        }
+
+        // Written directly, since the copy may be immutable.
+        if (value == null) {
+            copy.map.remove(member);
+        } else {
+            copy.map.put(member, value);
+        }
+        copy.changed(member);
+
+        return (T) copy;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new MemberSet();
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        return new MemberMap();
+    }
+
+    @Override
+    public String toString() {
+        return type.getName() + "::" + map.toString();
+    }
+
+    @Override
+    public long fingerprint() {
+        long f = fingerprint;
+        if (f == 0) {
+            f = Fingerprint.of(entrySet());
+            if (immutable) {
+                fingerprint = f;
+            }
+        }
+        return f;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = map.hashCode();
+            if (immutable) {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Slug<?>)) {
+            return false;
+        }
+
+        Slug<?> that = (Slug<?>) obj;
+
+        if (immutable && that.isImmutable()
+                && hashCode() != that.hashCode()) {
+            return false;
+        }
+
+        return this.entrySet().equals(that.entrySet());
+    }
+
+    /**
+     * A live view of the members of this slug whose writes go through
+     * {@link #set(String, Object)}, so they're checked and tracked.
+     */
+    private final class MemberMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            checkMutable();
+            Object old = map.get(key);
+            set(key, value);
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            checkMutable();
+            if (!(key instanceof String) || !map.containsKey(key)) {
+                return null;
+            }
+            Object old = map.get(key);
+            set((String) key, null);
+            return old;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new MemberSet();
+        }
+
+        @Override
+        public int hashCode() {
+            return map.hashCode();
+        }
+    }
+
+    private final class MemberSet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.entrySet().contains(o);
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            Iterator<Entry<String, Object>> iterator = map.entrySet().iterator();
+
+            return new Iterator<Entry<String, Object>>() {
+
+                private Entry<String, Object> last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    Entry<String, Object> entry = iterator.next();
+                    last = entry;
+
+                    return new AbstractMap.SimpleEntry<String, Object>(entry) {
+
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        public Object setValue(Object value) {
+                            set(getKey(), value);
+                            return super.setValue(value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    set(last.getKey(), null);
+                    last = null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.coronet.slug;
+
+import java.util.Map;
+
+/**
+ * Abstract base for runtime-generated slug implementations that store their
+ * declared members in fields of the generated class instead of in a
+ * {@code Map}. The generated class implements {@link #getSlot(int)} and
+ * {@link #setSlot(int, Object)} by switching on the slot index of the
+ * member. Members that aren't declared by the interface (or whose values
+ * don't fit the type of the corresponding field) are kept in an overflow
+ * map that isn't allocated until it's needed.
+ *
+ * @param <T> the interface type of this slug
+ * @see SlugLayout#FIELDS
+ */
+public abstract class AbstractFieldSlug<T extends Slug<T>>
+        extends AbstractSlotSlug<T> {
+
+    private final SlugShape shape;
+
+    /**
+     * Creates a new slug with no members set.
+     *
+     * @param type the interface type of this slug
+     * @param shape the declared members of this slug type
+     */
+    protected AbstractFieldSlug(Class<T> type, SlugShape shape) {
+        super(type);
+
+        if (shape == null) {
+            throw new NullPointerException("shape");
+        }
+
+        this.shape = shape;
+    }
+
+    /**
+     * Creates a new slug initialized with a copy of the given set of members.
+     *
+     * @param type the interface type of this slug
+     * @param shape the declared members of this slug type
+     * @param map the initial set of members for this slug
+     */
+    protected AbstractFieldSlug(
+            Class<T> type,
+            SlugShape shape,
+            Map<String, Object> map) {
+
+        this(type, shape);
+        initialize(map);
+    }
+
+    @Override
+    protected final SlugShape shape() {
+        return shape;
+    }
+}
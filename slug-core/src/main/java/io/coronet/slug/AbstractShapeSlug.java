@@ -0,0 +1,149 @@
+package io.coronet.slug;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Abstract base for runtime-generated slug implementations that store their
+ * members in a compact {@code Object[]} indexed by a shared, per-type
+ * {@link SlugShape}. Generated getters and setters read and write their
+ * member's slot directly. The slot array isn't allocated until the first
+ * member is set.
+ * <p>
+ * Setting an undeclared member transitions the slug to a child shape with a
+ * slot for that member; since transitions are cached, slugs that pick up the
+ * same extra members share their shapes too. Slugs that collect too many
+ * distinct undeclared members, or whose type already has too many shapes,
+ * fall back to an overflow map.
+ *
+ * @param <T> the interface type of this slug
+ * @see SlugLayout#SHAPE
+ */
+public abstract class AbstractShapeSlug<T extends Slug<T>>
+        extends AbstractSlotSlug<T> {
+
+    /**
+     * The maximum number of undeclared members stored in slots; any more go
+     * to the overflow map.
+     */
+    private static final int MAX_EXTRA_SLOTS = 16;
+
+    private SlugShape shape;
+    private Object[] slots;
+    private boolean slotsShared;
+
+    /**
+     * Creates a new slug with no members set.
+     *
+     * @param type the interface type of this slug
+     * @param shape the root shape of this slug type
+     */
+    protected AbstractShapeSlug(Class<T> type, SlugShape shape) {
+        super(type);
+
+        if (shape == null) {
+            throw new NullPointerException("shape");
+        }
+
+        this.shape = shape;
+        this.slots = null;
+    }
+
+    /**
+     * Creates a new slug initialized with a copy of the given set of members.
+     *
+     * @param type the interface type of this slug
+     * @param shape the root shape of this slug type
+     * @param map the initial set of members for this slug
+     */
+    protected AbstractShapeSlug(
+            Class<T> type,
+            SlugShape shape,
+            Map<String, Object> map) {
+
+        this(type, shape);
+        initialize(map);
+    }
+
+    @Override
+    protected final SlugShape shape() {
+        return shape;
+    }
+
+    @Override
+    protected final Object getSlot(int index) {
+        Object[] s = slots;
+        if (s == null || index >= s.length) {
+            return null;
+        }
+        return s[index];
+    }
+
+    @Override
+    protected final boolean setSlot(int index, Object value) {
+        if (slots == null) {
+            if (value == null) {
+                return true;
+            }
+            slots = new Object[shape.size()];
+        } else if (slotsShared) {
+            slots = slots.clone();
+            slotsShared = false;
+        }
+        slots[index] = value;
+        return true;
+    }
+
+    @Override
+    protected final void copySlots() {
+        if (slots != null) {
+            slots = slots.clone();
+        }
+        slotsShared = false;
+    }
+
+    @Override
+    protected final void shareSlots() {
+        if (slots != null) {
+            slotsShared = true;
+        }
+    }
+
+    /**
+     * Writes the declared member in the given slot. Called by generated
+     * setters.
+     *
+     * @param index the slot index of the member
+     * @param value the new value of the member, or null to clear it
+     */
+    protected final void putSlot(int index, Object value) {
+        checkMutable();
+        changed(shape.getName(index));
+        setSlot(index, value);
+    }
+
+    @Override
+    protected final boolean addSlot(String member, Object value) {
+        if (shape.size() - shape.declaredSize() >= MAX_EXTRA_SLOTS) {
+            return false;
+        }
+
+        SlugShape next = shape.withMember(member);
+        if (next == null) {
+            return false;
+        }
+
+        int index = next.indexOf(member);
+
+        if (slots == null) {
+            slots = new Object[next.size()];
+        } else if (slots.length < next.size() || slotsShared) {
+            slots = Arrays.copyOf(slots, next.size());
+            slotsShared = false;
+        }
+
+        shape = next;
+        slots[index] = value;
+        return true;
+    }
+}
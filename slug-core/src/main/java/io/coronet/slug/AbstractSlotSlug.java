@@ -0,0 +1,727 @@
+package io.coronet.slug;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Abstract base for runtime-generated slug implementations that store their
+ * members in numbered slots described by a {@link SlugShape} rather than in
+ * a {@code Map}. Members that don't have a slot (or whose values don't fit
+ * the type of their slot) are kept in an overflow map that isn't allocated
+ * until it's needed.
+ *
+ * @param <T> the interface type of this slug
+ * @see AbstractFieldSlug
+ * @see AbstractShapeSlug
+ */
+public abstract class AbstractSlotSlug<T extends Slug<T>>
+        implements Slug<T>, Cloneable, ChangeTracking {
+
+    private final Class<T> type;
+    private Map<String, Object> overflow;
+    private boolean overflowShared;
+    private boolean immutable;
+    private Set<String> changes;
+    private volatile ConvertedMembers conversions;
+
+    // Cached once immutable; zero if not computed yet.
+    private int hash;
+    private long fingerprint;
+
+    /**
+     * Creates a new slug with no members set.
+     *
+     * @param type the interface type of this slug
+     */
+    protected AbstractSlotSlug(Class<T> type) {
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+
+        this.type = type;
+        this.overflow = null;
+        this.immutable = false;
+    }
+
+    /**
+     * Copies the given set of members into this slug. Called by subclass
+     * constructors once their slot storage is initialized.
+     *
+     * @param map the initial set of members for this slug
+     */
+    protected final void initialize(Map<String, Object> map) {
+        if (map == null) {
+            throw new NullPointerException("map");
+        }
+
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns the current shape of this slug, which maps member names to
+     * slots.
+     *
+     * @return the current shape of this slug
+     */
+    protected abstract SlugShape shape();
+
+    /**
+     * Reads the member in the given slot.
+     *
+     * @param index the slot index of the member
+     * @return the current value of the slot, or null if it is not set
+     */
+    protected abstract Object getSlot(int index);
+
+    /**
+     * Writes the member in the given slot. If the value can't be stored in
+     * the slot because it's of the wrong type, the slot is left unchanged
+     * and false is returned.
+     *
+     * @param index the slot index of the member
+     * @param value the new value of the slot, or null to clear it
+     * @return true if the value was stored in the slot
+     */
+    protected abstract boolean setSlot(int index, Object value);
+
+    /**
+     * Attempts to store an undeclared member that isn't part of the current
+     * shape in a new slot. The default implementation returns false, and the
+     * member is stored in the overflow map instead.
+     *
+     * @param member the name of the member
+     * @param value the (non-null) value of the member
+     * @return true if the member was stored in a slot
+     */
+    protected boolean addSlot(String member, Object value) {
+        return false;
+    }
+
+    /**
+     * Called on a fresh shallow copy of this slug, before it's modified,
+     * to give it its own copy of any mutable slot storage. The default
+     * implementation does nothing, which is right for slots that are
+     * fields of the slug itself.
+     */
+    protected void copySlots() {
+    }
+
+    /**
+     * Called on both this slug and a fresh shallow copy of it when they're
+     * going to share their slot storage, and on the copy alone if this slug
+     * is immutable. Until it's next modified, a slug that's been shared
+     * must copy any mutable slot storage before writing to it. The default
+     * implementation does nothing, which is right for slots that are fields
+     * of the slug itself.
+     */
+    protected void shareSlots() {
+    }
+
+    /**
+     * Throws if this slug is immutable.
+     */
+    protected final void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("slug is immutable");
+        }
+    }
+
+    /**
+     * Called by generated setters before they write to a slot. Throws if
+     * this slug is immutable, and discards any value for the member that's
+     * been parked in the overflow map.
+     *
+     * @param member the name of the member about to be set
+     */
+    protected final void beforeSet(String member) {
+        checkMutable();
+        removeOverflow(member);
+        if (changes != null) {
+            changes.add(member);
+        }
+    }
+
+    /**
+     * Records a change to the given member, if this slug is tracking
+     * changes.
+     *
+     * @param member the name of the member that changed
+     */
+    final void changed(String member) {
+        if (changes != null) {
+            changes.add(member);
+        }
+    }
+
+    /**
+     * Reads a member from the overflow map. Called by generated getters when
+     * the member's slot is not set.
+     *
+     * @param member the name of the member
+     * @return the value of the member in the overflow map, or null
+     */
+    protected final Object getOverflow(String member) {
+        if (overflow == null) {
+            return null;
+        }
+        return overflow.get(member);
+    }
+
+    @Override
+    public Class<T> type() {
+        return type;
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T makeImmutable() {
+        immutable = true;
+        return (T) this;
+    }
+
+    @Override
+    public Object get(String member) {
+        int index = shape().indexOf(member);
+        if (index >= 0) {
+            Object value = getSlot(index);
+            if (value != null) {
+                return value;
+            }
+        }
+        return getOverflow(member);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+        checkMutable();
+        changed(member);
+        store(member, value);
+        return (T) this;
+    }
+
+    /**
+     * Stores a member in its slot if it fits, or the overflow map if not.
+     */
+    private void store(String member, Object value) {
+        int index = shape().indexOf(member);
+        if (index >= 0) {
+            if (setSlot(index, value)) {
+                removeOverflow(member);
+                return;
+            }
+
+            // Wrong type for the slot; clear it and park the value in the
+            // overflow map so it round-trips.
+            setSlot(index, null);
+
+        } else if (value != null && overflow == null
+                && addSlot(member, value)) {
+
+            return;
+        }
+
+        if (value == null) {
+            removeOverflow(member);
+        } else if (overflow instanceof PersistentMap) {
+            overflow = ((PersistentMap) overflow).with(member, value);
+        } else {
+            if (overflow == null) {
+                overflow = new HashMap<>();
+            } else if (overflowShared) {
+                overflow = new HashMap<>(overflow);
+                overflowShared = false;
+            }
+            overflow.put(member, value);
+        }
+    }
+
+    /**
+     * Converts the raw value of a member to the type declared by its getter,
+     * if it isn't already, and stores the converted value in place of the
+     * raw one so it's only converted once. Immutable slugs remember the
+     * converted value on the side instead. Called by generated getters
+     * whose return types are slug interfaces, or lists or maps of them.
+     *
+     * @param member the name of the member
+     * @param value the current value of the member
+     * @return the converted value
+     */
+    protected final Object convertMember(String member, Object value) {
+        if (immutable) {
+            return conversions().convert(type, member, value);
+        }
+
+        Object converted = Conversions.convertMember(type, member, value);
+        if (converted != value) {
+            store(member, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Returns the converted values remembered for this slug, creating them
+     * the first time they're needed.
+     */
+    private ConvertedMembers conversions() {
+        ConvertedMembers c = conversions;
+        if (c == null) {
+            c = new ConvertedMembers();
+            conversions = c;
+        }
+        return c;
+    }
+
+    /**
+     * Returns true if any members are stored in the overflow map.
+     *
+     * @return true if the overflow map isn't empty
+     */
+    final boolean hasOverflow() {
+        return (overflow != null && !overflow.isEmpty());
+    }
+
+    /**
+     * Removes the given member from the overflow map, if it's there.
+     */
+    private void removeOverflow(String member) {
+        if (overflow == null || !overflow.containsKey(member)) {
+            return;
+        }
+
+        if (overflow instanceof PersistentMap) {
+            overflow = ((PersistentMap) overflow).with(member, null);
+        } else {
+            if (overflowShared) {
+                overflow = new HashMap<>(overflow);
+                overflowShared = false;
+            }
+            overflow.remove(member);
+        }
+    }
+
+    /**
+     * Reads a declared member given its slot index, skipping the shape
+     * lookup. Used by {@link SlugAccessor}.
+     *
+     * @param index the slot index of the member
+     * @param member the name of the member
+     * @return the current value of the member, or null
+     */
+    final Object getMember(int index, String member) {
+        Object value = getSlot(index);
+        if (value != null) {
+            return value;
+        }
+        return getOverflow(member);
+    }
+
+    /**
+     * Writes a declared member given its slot index, skipping the shape
+     * lookup when the value fits the slot. Used by {@link SlugAccessor}.
+     *
+     * @param index the slot index of the member
+     * @param member the name of the member
+     * @param value the new value of the member, or null
+     */
+    final void setMember(int index, String member, Object value) {
+        checkMutable();
+        if (setSlot(index, value)) {
+            changed(member);
+            removeOverflow(member);
+        } else {
+            set(member, value);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T with(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+
+        AbstractSlotSlug<T> copy;
+        try {
+            copy = (AbstractSlotSlug<T>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.conversions = null;
+
+        copy.copySlots();
+        copy.overflowShared = false;
+        copy.hash = 0;
+        copy.fingerprint = 0;
+        if (changes != null) {
+            copy.changes = new HashSet<>(changes);
+        }
+
+        if (overflow != null) {
+            if (immutable) {
+                // Neither slug will ever modify the overflow map in place
+                // again, so it can be shared (and persistently updated).
+                Map<String, Object> o = overflow;
+                if (!(o instanceof PersistentMap)) {
+                    o = PersistentMap.copyOf(o);
+                    overflow = o;
+                }
+                copy.overflow = o;
+            } else {
+                copy.overflow = new HashMap<>(overflow);
+            }
+        }
+
+        copy.immutable = false;
+        copy.set(member, value);
+        copy.immutable = immutable;
+
+        return (T) copy;
+    }
+
+    /**
+     * Creates a mutable copy of this slug that shares its storage with this
+     * slug until either of them is modified.
+     *
+     * @return a copy of this slug
+     */
+    final T share() {
+        AbstractSlotSlug<T> copy;
+        try {
+            @SuppressWarnings("unchecked")
+            AbstractSlotSlug<T> c = (AbstractSlotSlug<T>) clone();
+            copy = c;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        copy.immutable = false;
+        copy.conversions = null;
+        copy.hash = 0;
+        copy.fingerprint = 0;
+        if (changes != null) {
+            copy.changes = new HashSet<>();
+        }
+        copy.shareSlots();
+        if (overflow != null) {
+            copy.overflowShared = true;
+        }
+
+        if (!immutable) {
+            shareSlots();
+            if (overflow != null) {
+                overflowShared = true;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T result = (T) copy;
+        return result;
+    }
+
+    @Override
+    public void trackChanges() {
+        changes = new HashSet<>();
+    }
+
+    @Override
+    public Set<String> changes() {
+        if (changes == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(changes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T clearChanges() {
+        checkMutable();
+        if (changes != null) {
+            changes.clear();
+        }
+        return (T) this;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new MemberSet();
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        return new MemberMap();
+    }
+
+    @Override
+    public String toString() {
+        return type.getName() + "::" + asMap().toString();
+    }
+
+    @Override
+    public long fingerprint() {
+        long f = fingerprint;
+        if (f == 0) {
+            f = Fingerprint.of(entrySet());
+            if (immutable) {
+                fingerprint = f;
+            }
+        }
+        return f;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = entrySet().hashCode();
+            if (immutable) {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Slug<?>)) {
+            return false;
+        }
+
+        Slug<?> that = (Slug<?>) obj;
+
+        if (immutable && that.isImmutable()
+                && hashCode() != that.hashCode()) {
+            return false;
+        }
+
+        if (that.getClass() == getClass()) {
+            AbstractSlotSlug<?> other = (AbstractSlotSlug<?>) that;
+            if (other.shape() == shape()) {
+                return slotsEqual(other);
+            }
+        }
+
+        return this.entrySet().equals(that.entrySet());
+    }
+
+    /**
+     * Compares this slug to another of the same class and shape slot by
+     * slot, without materializing any entries. Every member is stored in
+     * the same place in both (its slot if it fits, the overflow map if not),
+     * so this is equivalent to comparing their entry sets.
+     */
+    private boolean slotsEqual(AbstractSlotSlug<?> that) {
+        SlugShape shape = shape();
+        for (int i = 0; i < shape.size(); ++i) {
+            Object a = getSlot(i);
+            Object b = that.getSlot(i);
+            if (a == null ? b != null : !a.equals(b)) {
+                return false;
+            }
+        }
+
+        Map<String, Object> a = overflow;
+        Map<String, Object> b = that.overflow;
+        if (a == null || a.isEmpty()) {
+            return (b == null || b.isEmpty());
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * A live {@code Map} view of the members of this slug.
+     */
+    private final class MemberMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            return AbstractSlotSlug.this.get((String) key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return (get(key) != null);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object old = get(key);
+            set(key, value);
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Object old = get(key);
+            set((String) key, null);
+            return old;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new MemberSet();
+        }
+    }
+
+    /**
+     * A live view of the entries of this slug: the set slots, followed by
+     * the contents of the overflow map.
+     */
+    private final class MemberSet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            SlugShape shape = shape();
+            int size = 0;
+            for (int i = 0; i < shape.size(); ++i) {
+                if (getSlot(i) != null) {
+                    size += 1;
+                }
+            }
+            if (overflow != null) {
+                size += overflow.size();
+            }
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry<?, ?>)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            if (!(entry.getKey() instanceof String)) {
+                return false;
+            }
+            Object value = get((String) entry.getKey());
+            return (value != null && value.equals(entry.getValue()));
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new MemberIterator();
+        }
+    }
+
+    private final class MemberIterator
+            implements Iterator<Entry<String, Object>> {
+
+        private int index;
+        private Iterator<Entry<String, Object>> rest;
+        private boolean restShared;
+        private String lastKey;
+        private int last;
+
+        public MemberIterator() {
+            this.index = 0;
+            this.last = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (findSlot() || rest().hasNext());
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (findSlot()) {
+                last = index++;
+                return new MemberEntry(shape().getName(last), getSlot(last));
+            }
+
+            Entry<String, Object> entry = rest().next();
+            last = Integer.MAX_VALUE;
+            lastKey = entry.getKey();
+            return new MemberEntry(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkMutable();
+
+            if (last < Integer.MAX_VALUE) {
+                changed(shape().getName(last));
+                setSlot(last, null);
+            } else if (restShared) {
+                // The overflow map we're walking is shared (or persistent);
+                // remove the member from this slug's own copy instead.
+                changed(lastKey);
+                removeOverflow(lastKey);
+            } else {
+                changed(lastKey);
+                rest.remove();
+            }
+            last = -1;
+        }
+
+        private boolean findSlot() {
+            while (index < shape().size()) {
+                if (getSlot(index) != null) {
+                    return true;
+                }
+                index += 1;
+            }
+            return false;
+        }
+
+        private Iterator<Entry<String, Object>> rest() {
+            if (rest == null) {
+                if (overflow == null) {
+                    return Collections.emptyIterator();
+                }
+                rest = overflow.entrySet().iterator();
+                restShared = (overflowShared
+                        || overflow instanceof PersistentMap);
+            }
+            return rest;
+        }
+    }
+
+    /**
+     * An entry whose {@code setValue} writes through to the slug.
+     */
+    private final class MemberEntry
+            extends AbstractMap.SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        public MemberEntry(String key, Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            set(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package io.coronet.slug;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -10,11 +14,18 @@ import java.util.Set;
  *
  * @param <T> the interface type of this slug
  */
-public class AbstractSlug<T extends Slug<T>> implements Slug<T> {
+public class AbstractSlug<T extends Slug<T>>
+        implements Slug<T>, Cloneable, ChangeTracking {
 
     private final Class<T> type;
     private Map<String, Object> map;
     private boolean immutable;
+    private Set<String> changes;
+    private volatile ConvertedMembers conversions;
+
+    // Cached once immutable; zero if not computed yet.
+    private int hash;
+    private long fingerprint;
 
     /**
      * Creates a new slug wrapping the given set of members.
@@ -48,8 +59,14 @@ public class AbstractSlug<T extends Slug<T>> implements Slug<T> {
     @Override
     @SuppressWarnings("unchecked")
     public T makeImmutable() {
-        map = Collections.unmodifiableMap(map);
-        immutable = true;
+        if (!immutable) {
+            if (map instanceof CopyOnWriteMap) {
+                ((CopyOnWriteMap) map).freeze();
+            } else {
+                map = Collections.unmodifiableMap(map);
+            }
+            immutable = true;
+        }
         return (T) this;
     }
 
@@ -71,16 +88,152 @@ public class AbstractSlug<T extends Slug<T>> implements Slug<T> {
             map.put(member, value);
         }
 
+        if (changes != null) {
+            changes.add(member);
+        }
+
+        return (T) this;
+    }
+
+    /**
+     * Converts the raw value of a member to the type declared by its getter,
+     * if it isn't already, and stores the converted value in place of the
+     * raw one so it's only converted once. Immutable slugs, and slugs
+     * wrapping a map they don't own, remember the converted value on the
+     * side instead. Called by generated getters whose return types are slug
+     * interfaces, or lists or maps of them.
+     *
+     * @param member the name of the member
+     * @param value the current value of the member
+     * @return the converted value
+     */
+    protected final Object convertMember(String member, Object value) {
+        if (immutable || !(map instanceof CopyOnWriteMap)) {
+            return conversions().convert(type, member, value);
+        }
+
+        Object converted = Conversions.convertMember(type, member, value);
+        if (converted != value) {
+            map.put(member, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Returns the converted values remembered for this slug, creating them
+     * the first time they're needed.
+     */
+    private ConvertedMembers conversions() {
+        ConvertedMembers c = conversions;
+        if (c == null) {
+            c = new ConvertedMembers();
+            conversions = c;
+        }
+        return c;
+    }
+
+    @Override
+    public void trackChanges() {
+        changes = new HashSet<>();
+    }
+
+    @Override
+    public Set<String> changes() {
+        if (changes == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(changes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T clearChanges() {
+        if (immutable) {
+            throw new UnsupportedOperationException("slug is immutable");
+        }
+        if (changes != null) {
+            changes.clear();
+        }
         return (T) this;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public T with(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+
+        AbstractSlug<T> copy;
+        try {
+            copy = (AbstractSlug<T>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.conversions = null;
+        copy.hash = 0;
+        copy.fingerprint = 0;
+        if (changes != null) {
+            copy.changes = new HashSet<>(changes);
+        }
+
+        if (immutable) {
+            // Switch to a persistent map the first time we're updated, so
+            // further updates down the line share structure. Racing threads
+            // may both do this; either result is fine.
+            Map<String, Object> m = map;
+            if (!(m instanceof PersistentMap)) {
+                m = PersistentMap.copyOf(m);
+                map = m;
+            }
+            copy.map = ((PersistentMap) m).with(member, value);
+            if (copy.changes != null) {
+                copy.changes.add(member);
+            }
+        } else {
+            Map<String, Object> shared = share();
+            if (shared == null) {
+                shared = new CopyOnWriteMap(map);
+            }
+            copy.map = shared;
+            copy.set(member, value);
+        }
+
+        return (T) copy;
+    }
+
+    /**
+     * Returns a map of this slug's members that a new slug can take as its
+     * own, sharing storage with this slug until either of them is modified.
+     * Returns null if this slug's storage can't be shared safely, such as
+     * when it wraps a map that someone else may still modify.
+     *
+     * @return a map sharing this slug's members, or null
+     */
+    final Map<String, Object> share() {
+        Map<String, Object> m = map;
+        if (m instanceof CopyOnWriteMap) {
+            return ((CopyOnWriteMap) m).share();
+        }
+        if (m instanceof PersistentMap) {
+            return new CopyOnWriteMap(m, true);
+        }
+        return null;
+    }
+
     @Override
     public Set<Entry<String, Object>> entrySet() {
+        if (changes != null) {
+            return new TrackingSet();
+        }
         return map.entrySet();
     }
 
     @Override
     public Map<String, Object> asMap() {
+        if (changes != null) {
+            return new TrackingMap();
+        }
         return map;
     }
 
@@ -89,9 +242,28 @@ public class AbstractSlug<T extends Slug<T>> implements Slug<T> {
         return type.getName() + "::" + map.toString();
     }
 
+    @Override
+    public long fingerprint() {
+        long f = fingerprint;
+        if (f == 0) {
+            f = Fingerprint.of(entrySet());
+            if (immutable) {
+                fingerprint = f;
+            }
+        }
+        return f;
+    }
+
     @Override
     public int hashCode() {
-        return map.hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = map.hashCode();
+            if (immutable) {
+                hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -105,6 +277,120 @@ public class AbstractSlug<T extends Slug<T>> implements Slug<T> {
 
         Slug<?> that = (Slug<?>) obj;
 
+        if (immutable && that.isImmutable()
+                && hashCode() != that.hashCode()) {
+            return false;
+        }
+
+        if (that instanceof AbstractSlug<?>) {
+            Map<String, Object> other = ((AbstractSlug<?>) that).map;
+            if (map == other) {
+                return true;
+            }
+            if (map instanceof CopyOnWriteMap
+                    && other instanceof CopyOnWriteMap
+                    && ((CopyOnWriteMap) map).sharesEntriesWith(
+                            (CopyOnWriteMap) other)) {
+                return true;
+            }
+        }
+
         return this.entrySet().equals(that.entrySet());
     }
+
+    /**
+     * A view of the members of a slug that's tracking changes, which records
+     * writes made through the view.
+     */
+    private final class TrackingMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object old = map.get(key);
+            set(key, value);
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String) || !map.containsKey(key)) {
+                return null;
+            }
+            Object old = map.get(key);
+            set((String) key, null);
+            return old;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new TrackingSet();
+        }
+    }
+
+    private final class TrackingSet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.entrySet().contains(o);
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            Iterator<Entry<String, Object>> iterator = map.entrySet().iterator();
+
+            return new Iterator<Entry<String, Object>>() {
+
+                private Entry<String, Object> last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    Entry<String, Object> entry = iterator.next();
+                    last = entry;
+
+                    return new AbstractMap.SimpleEntry<String, Object>(entry) {
+
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        public Object setValue(Object value) {
+                            entry.setValue(value);
+                            changes.add(getKey());
+                            return super.setValue(value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    changes.add(last.getKey());
+                }
+            };
+        }
+    }
 }
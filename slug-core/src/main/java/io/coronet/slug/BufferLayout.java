@@ -0,0 +1,408 @@
+package io.coronet.slug;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary layout of the members of a {@link SlugLayout#BUFFER} slug,
+ * derived from the declared members of its root {@link SlugShape}. A
+ * buffer holds, in big-endian order:
+ * <ol>
+ * <li>a 4-byte header: the number of bytes of the buffer in use,</li>
+ * <li>a bitmap with one bit per declared member, set if the member is,</li>
+ * <li>a fixed-width field for each declared member of a boolean, numeric,
+ *     or string type, in slot order, and</li>
+ * <li>the UTF-8 bytes of string members, whose fields hold their offset and
+ *     length.</li>
+ * </ol>
+ * Members of other types (and undeclared members) have no field, and live
+ * in the slug's overflow map.
+ */
+final class BufferLayout {
+
+    private static final int HEADER = 4;
+
+    private static final byte NONE = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte CHAR = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+
+    private final byte[] kinds;
+    private final int[] offsets;
+    private final int fixedSize;
+
+    /**
+     * Computes the layout for the declared members of the given shape.
+     *
+     * @param shape the root shape of the slug type
+     */
+    BufferLayout(SlugShape shape) {
+        int size = shape.declaredSize();
+
+        this.kinds = new byte[size];
+        this.offsets = new int[size];
+
+        int offset = HEADER + (size + 7) / 8;
+        for (int i = 0; i < size; ++i) {
+            byte kind = kindOf(shape.getType(i));
+            kinds[i] = kind;
+            offsets[i] = offset;
+            offset += widthOf(kind);
+        }
+
+        this.fixedSize = offset;
+    }
+
+    /**
+     * Returns the size of the header, bitmap, and fixed-width fields: the
+     * smallest valid buffer for this layout.
+     *
+     * @return the size of the fixed part of the layout
+     */
+    public int fixedSize() {
+        return fixedSize;
+    }
+
+    /**
+     * Writes an empty header and bitmap to the start of the given buffer.
+     *
+     * @param buffer the buffer to initialize
+     */
+    public void initialize(ByteBuffer buffer) {
+        for (int i = 0; i < fixedSize; ++i) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.putInt(0, fixedSize);
+    }
+
+    /**
+     * Returns the number of bytes of the given buffer that are in use.
+     *
+     * @param buffer the buffer
+     * @return the number of bytes in use
+     */
+    public int used(ByteBuffer buffer) {
+        return buffer.getInt(0);
+    }
+
+    /**
+     * Checks that the given buffer looks like it holds a slug with this
+     * layout: the header is in range, and every string member that's set
+     * lies within the used part of the buffer, past the fixed-width fields.
+     *
+     * @param buffer the buffer to check
+     * @throws IllegalArgumentException if it doesn't
+     */
+    public void check(ByteBuffer buffer) {
+        if (buffer.capacity() < fixedSize) {
+            throw new IllegalArgumentException(
+                    "Buffer too small: " + buffer.capacity() + " < "
+                    + fixedSize);
+        }
+        int used = used(buffer);
+        if (used < fixedSize || used > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt buffer header");
+        }
+
+        for (int i = 0; i < kinds.length; ++i) {
+            if (kinds[i] != STRING || !isSet(buffer, i)) {
+                continue;
+            }
+            int offset = buffer.getInt(offsets[i]);
+            int length = buffer.getInt(offsets[i] + 4);
+            if (length < 0 || offset < fixedSize
+                    || (long) offset + length > used) {
+                throw new IllegalArgumentException(
+                        "Corrupt string member in slot " + i);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes the given buffer would use with no dead
+     * string bytes: the fixed-width part, plus the strings that are set.
+     *
+     * @param buffer the buffer
+     * @return the number of live bytes
+     */
+    public int liveSize(ByteBuffer buffer) {
+        int size = fixedSize;
+        for (int i = 0; i < kinds.length; ++i) {
+            if (kinds[i] == STRING && isSet(buffer, i)) {
+                size += buffer.getInt(offsets[i] + 4);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Copies the given buffer into a new heap buffer of the given capacity,
+     * leaving behind the bytes of strings that have since been replaced by
+     * longer ones.
+     *
+     * @param source the buffer to copy
+     * @param capacity the capacity of the new buffer, at least
+     *            {@link #liveSize(ByteBuffer)}
+     * @return the compacted copy
+     */
+    public ByteBuffer compact(ByteBuffer source, int capacity) {
+        ByteBuffer target = ByteBuffer.allocate(capacity);
+        ByteBuffer from = source.duplicate();
+
+        from.clear();
+        from.limit(fixedSize);
+        target.put(from);
+
+        int end = fixedSize;
+        for (int i = 0; i < kinds.length; ++i) {
+            if (kinds[i] != STRING || !isSet(source, i)) {
+                continue;
+            }
+            int offset = source.getInt(offsets[i]);
+            int length = source.getInt(offsets[i] + 4);
+
+            from.clear();
+            from.position(offset);
+            from.limit(offset + length);
+            target.position(end);
+            target.put(from);
+
+            target.putInt(offsets[i], end);
+            end += length;
+        }
+
+        target.putInt(0, end);
+        target.clear();
+        return target;
+    }
+
+    /**
+     * Returns true if the given slot has a field in this layout.
+     *
+     * @param index the slot index
+     * @return true if the slot has a field
+     */
+    public boolean hasField(int index) {
+        return (index < kinds.length && kinds[index] != NONE);
+    }
+
+    /**
+     * Returns true if the given (non-null) value can be stored in the field
+     * for the given slot.
+     *
+     * @param index the slot index
+     * @param value the value
+     * @return true if the value fits
+     */
+    public boolean fits(int index, Object value) {
+        switch (kinds[index]) {
+        case BOOLEAN:   return (value instanceof Boolean);
+        case BYTE:      return (value instanceof Byte);
+        case SHORT:     return (value instanceof Short);
+        case CHAR:      return (value instanceof Character);
+        case INT:       return (value instanceof Integer);
+        case LONG:      return (value instanceof Long);
+        case FLOAT:     return (value instanceof Float);
+        case DOUBLE:    return (value instanceof Double);
+        case STRING:    return (value instanceof String);
+        default:        return false;
+        }
+    }
+
+    /**
+     * Returns true if the given slot is set in the given buffer.
+     *
+     * @param buffer the buffer
+     * @param index the slot index
+     * @return true if the slot is set
+     */
+    public boolean isSet(ByteBuffer buffer, int index) {
+        return (buffer.get(HEADER + (index >>> 3)) & (1 << (index & 7))) != 0;
+    }
+
+    /**
+     * Clears the given slot in the given buffer.
+     *
+     * @param buffer the buffer
+     * @param index the slot index
+     */
+    public void clear(ByteBuffer buffer, int index) {
+        int at = HEADER + (index >>> 3);
+        buffer.put(at, (byte) (buffer.get(at) & ~(1 << (index & 7))));
+    }
+
+    /**
+     * Decodes the value of the given slot, which must be set.
+     *
+     * @param buffer the buffer
+     * @param index the slot index
+     * @return the value of the slot
+     */
+    public Object read(ByteBuffer buffer, int index) {
+        int at = offsets[index];
+
+        switch (kinds[index]) {
+        case BOOLEAN:   return (buffer.get(at) != 0);
+        case BYTE:      return buffer.get(at);
+        case SHORT:     return buffer.getShort(at);
+        case CHAR:      return buffer.getChar(at);
+        case INT:       return buffer.getInt(at);
+        case LONG:      return buffer.getLong(at);
+        case FLOAT:     return buffer.getFloat(at);
+        case DOUBLE:    return buffer.getDouble(at);
+
+        case STRING:
+            int offset = buffer.getInt(at);
+            int length = buffer.getInt(at + 4);
+            byte[] bytes = new byte[length];
+            ByteBuffer from = buffer.duplicate();
+            from.clear();
+            from.position(offset);
+            from.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+
+        default:
+            throw new IllegalStateException("No field for slot " + index);
+        }
+    }
+
+    /**
+     * Returns the number of bytes past the end of the used part of the
+     * buffer that writing the given value to the given slot needs: zero,
+     * unless it's a string that doesn't fit where the slot's current value
+     * is.
+     *
+     * @param buffer the buffer
+     * @param index the slot index
+     * @param encoded the value, encoded by {@link #encode(int, Object)}
+     * @return the number of extra bytes needed
+     */
+    public int extraBytes(ByteBuffer buffer, int index, Object encoded) {
+        if (kinds[index] != STRING) {
+            return 0;
+        }
+        int length = ((byte[]) encoded).length;
+        if (isSet(buffer, index)
+                && buffer.getInt(offsets[index] + 4) >= length) {
+            return 0;
+        }
+        return length;
+    }
+
+    /**
+     * Encodes a value that fits the given slot into the form that
+     * {@link #write(ByteBuffer, int, Object)} takes; strings are converted
+     * to UTF-8, other values are returned as they are.
+     *
+     * @param index the slot index
+     * @param value the value
+     * @return the encoded value
+     */
+    public Object encode(int index, Object value) {
+        if (kinds[index] == STRING) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * Writes an encoded value to the given slot, and marks it set. The
+     * buffer must have room for {@link #extraBytes} more bytes.
+     *
+     * @param buffer the buffer
+     * @param index the slot index
+     * @param encoded the encoded value
+     */
+    public void write(ByteBuffer buffer, int index, Object encoded) {
+        int at = offsets[index];
+
+        switch (kinds[index]) {
+        case BOOLEAN:
+            buffer.put(at, (byte) (((Boolean) encoded) ? 1 : 0));
+            break;
+        case BYTE:      buffer.put(at, (Byte) encoded); break;
+        case SHORT:     buffer.putShort(at, (Short) encoded); break;
+        case CHAR:      buffer.putChar(at, (Character) encoded); break;
+        case INT:       buffer.putInt(at, (Integer) encoded); break;
+        case LONG:      buffer.putLong(at, (Long) encoded); break;
+        case FLOAT:     buffer.putFloat(at, (Float) encoded); break;
+        case DOUBLE:    buffer.putDouble(at, (Double) encoded); break;
+
+        case STRING:
+            byte[] bytes = (byte[]) encoded;
+            int offset;
+            if (extraBytes(buffer, index, bytes) == 0) {
+                // Overwrite the old value in place.
+                offset = buffer.getInt(at);
+            } else {
+                offset = used(buffer);
+                buffer.putInt(0, offset + bytes.length);
+            }
+            for (int i = 0; i < bytes.length; ++i) {
+                buffer.put(offset + i, bytes[i]);
+            }
+            buffer.putInt(at, offset);
+            buffer.putInt(at + 4, bytes.length);
+            break;
+
+        default:
+            throw new IllegalStateException("No field for slot " + index);
+        }
+
+        int bit = HEADER + (index >>> 3);
+        buffer.put(bit, (byte) (buffer.get(bit) | (1 << (index & 7))));
+    }
+
+    private static byte kindOf(Type type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return BYTE;
+        }
+        if (type == short.class || type == Short.class) {
+            return SHORT;
+        }
+        if (type == char.class || type == Character.class) {
+            return CHAR;
+        }
+        if (type == int.class || type == Integer.class) {
+            return INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return LONG;
+        }
+        if (type == float.class || type == Float.class) {
+            return FLOAT;
+        }
+        if (type == double.class || type == Double.class) {
+            return DOUBLE;
+        }
+        if (type == String.class) {
+            return STRING;
+        }
+        return NONE;
+    }
+
+    private static int widthOf(byte kind) {
+        switch (kind) {
+        case BOOLEAN:
+        case BYTE:      return 1;
+        case SHORT:
+        case CHAR:      return 2;
+        case INT:
+        case FLOAT:     return 4;
+        case LONG:
+        case DOUBLE:
+        case STRING:    return 8;
+        default:        return 0;
+        }
+    }
+}
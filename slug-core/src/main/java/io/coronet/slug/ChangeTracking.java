@@ -0,0 +1,16 @@
+package io.coronet.slug;
+
+/**
+ * Implemented by slug base classes that can record which of their members
+ * have changed.
+ *
+ * @see SlugBox.Builder#withChangeTracking(boolean)
+ * @see Slug#changes()
+ */
+interface ChangeTracking {
+
+    /**
+     * Starts recording changes to this slug, with an empty change set.
+     */
+    void trackChanges();
+}
@@ -0,0 +1,115 @@
+package io.coronet.slug;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A directory of generated class files that outlives the process, so a
+ * {@code SlugBox} can define its classes from bytes stored by an earlier run
+ * instead of generating them again. Classes are stored under their binary
+ * names, laid out the same way as a classpath directory.
+ * <p>
+ * The cache is best-effort: a class that can't be read is treated as missing,
+ * and a class that can't be written is just not cached. Writes go to a
+ * temporary file that's atomically renamed into place, so processes sharing
+ * the directory never see a partly written class.
+ *
+ * @see SlugBox.Builder#withClassCache(Path)
+ */
+final class ClassCache {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final Path directory;
+
+    /**
+     * Creates a new cache in the given directory. The directory is created
+     * when the first class is stored.
+     *
+     * @param directory the directory to store classes in
+     */
+    public ClassCache(Path directory) {
+        if (directory == null) {
+            throw new NullPointerException("directory");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the class file with the given binary name.
+     *
+     * @param name the binary name of the class
+     * @return the class file, or null if it's not cached
+     */
+    public byte[] read(String name) {
+        try {
+
+            byte[] data = Files.readAllBytes(path(name));
+            if (data.length < 4 || readInt(data) != MAGIC) {
+                return null;
+            }
+            return data;
+
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the class file with the given binary name, replacing any that's
+     * already stored.
+     *
+     * @param name the binary name of the class
+     * @param data the class file
+     */
+    public void write(String name, byte[] data) {
+        Path path = path(name);
+        Path temp = null;
+
+        try {
+
+            Files.createDirectories(path.getParent());
+            temp = Files.createTempFile(
+                    path.getParent(),
+                    path.getFileName().toString(),
+                    ".tmp");
+
+            Files.write(temp, data);
+
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+        } catch (IOException e) {
+            // Not cached this time; we'll generate it again next time.
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private Path path(String name) {
+        return directory.resolve(name.replace('.', '/') + ".class");
+    }
+
+    private static int readInt(byte[] data) {
+        return ((data[0] & 0xFF) << 24)
+                | ((data[1] & 0xFF) << 16)
+                | ((data[2] & 0xFF) << 8)
+                | (data[3] & 0xFF);
+    }
+}
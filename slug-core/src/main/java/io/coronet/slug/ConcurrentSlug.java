@@ -0,0 +1,42 @@
+package io.coronet.slug;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Atomic member updates, implemented by slugs generated with the
+ * {@link SlugLayout#CONCURRENT} layout. Cast a slug to this interface to
+ * update one of its members based on its current value without locking the
+ * whole slug.
+ *
+ * @see AbstractConcurrentSlug
+ */
+public interface ConcurrentSlug {
+
+    /**
+     * Atomically sets the given member to {@code update} if its current
+     * value is equal to {@code expect}. A null {@code expect} matches a
+     * member that isn't set, and a null {@code update} clears the member.
+     *
+     * @param member the name of the member
+     * @param expect the expected current value of the member, or null
+     * @param update the new value of the member, or null
+     * @return true if the member was updated
+     * @throws UnsupportedOperationException if the slug is immutable
+     */
+    boolean compareAndSet(String member, Object expect, Object update);
+
+    /**
+     * Atomically replaces the value of the given member with the result of
+     * applying {@code function} to its current value (null if the member
+     * isn't set). A null result clears the member. The function may be
+     * called while other updates to the same member are blocked, so it
+     * should be short and must not update this slug itself. A result that's
+     * the same instance as the current value doesn't count as a change.
+     *
+     * @param member the name of the member
+     * @param function the function computing the new value
+     * @return the new value of the member, or null
+     * @throws UnsupportedOperationException if the slug is immutable
+     */
+    Object compute(String member, UnaryOperator<Object> function);
+}
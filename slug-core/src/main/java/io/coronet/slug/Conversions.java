@@ -0,0 +1,368 @@
+package io.coronet.slug;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Converts raw nested values (as produced by a generic parser, or found in a
+ * map passed to {@link SlugBox#wrap(Class, Map)}) to the types declared by
+ * slug getters, on demand. A {@code Map} becomes a slug when the getter
+ * returns a slug interface; a {@code List} or {@code Map} whose declared
+ * element type is a slug interface becomes a view that converts each
+ * element the first time it's read and writes the result back.
+ * <p>
+ * Nested slugs are live views of the nested maps, created by a
+ * default-configured box, so converting a member costs the same no matter
+ * how big it is.
+ */
+final class Conversions {
+
+    private static final SlugBox BOX = new SlugBox();
+
+    /**
+     * The declared types of the members of each slug interface whose
+     * getters return something convertible.
+     */
+    private static final ClassValue<Map<String, Type>> TARGETS =
+            new ClassValue<Map<String, Type>>() {
+                @Override
+                protected Map<String, Type> computeValue(Class<?> type) {
+                    return findTargets(type);
+                }
+            };
+
+    /**
+     * Returns true if values of the given declared type may need
+     * converting: a slug interface, or a list, collection, or string-keyed
+     * map of convertible values.
+     *
+     * @param type the declared type of a member
+     * @return true if values of the type may need converting
+     */
+    public static boolean isConvertible(Type type) {
+        if (type instanceof Class<?>) {
+            return isSlugType((Class<?>) type);
+        }
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+
+        ParameterizedType p = (ParameterizedType) type;
+        Type raw = p.getRawType();
+        Type[] args = p.getActualTypeArguments();
+
+        if (raw == List.class || raw == Collection.class
+                || raw == Iterable.class) {
+            return isConvertible(args[0]);
+        }
+        if (raw == Map.class) {
+            return (args[0] == String.class && isConvertible(args[1]));
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given class is a slug interface.
+     *
+     * @param type the class
+     * @return true if it's a slug interface
+     */
+    public static boolean isSlugType(Class<?> type) {
+        return (type.isInterface() && Slug.class.isAssignableFrom(type)
+                && type != Slug.class);
+    }
+
+    /**
+     * Converts the value of a member of a slug to the type declared by the
+     * member's getter.
+     *
+     * @param type the interface type of the slug
+     * @param member the name of the member
+     * @param value the raw value of the member
+     * @return the converted value, or {@code value} itself if it doesn't
+     *         need converting
+     */
+    public static Object convertMember(
+            Class<?> type,
+            String member,
+            Object value) {
+
+        if (value == null || value instanceof SlugList
+                || value instanceof SlugMap) {
+            return value;
+        }
+
+        Type target = TARGETS.get(type).get(member);
+        if (target == null) {
+            return value;
+        }
+        return convert(target, value);
+    }
+
+    /**
+     * Converts a value to the given declared type.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object convert(Type target, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (target instanceof Class<?>) {
+            Class<?> c = (Class<?>) target;
+            if (!c.isInstance(value) && value instanceof Map<?, ?>) {
+                return wrap(c, (Map<String, Object>) value);
+            }
+            return value;
+        }
+
+        ParameterizedType p = (ParameterizedType) target;
+        Type[] args = p.getActualTypeArguments();
+
+        if (p.getRawType() == Map.class) {
+            if (value instanceof Map<?, ?> && !(value instanceof SlugMap)
+                    && !(value instanceof Slug<?>)) {
+                return new SlugMap(args[1], (Map<String, Object>) value);
+            }
+            return value;
+        }
+
+        if (value instanceof List<?> && !(value instanceof SlugList)) {
+            return new SlugList(args[0], (List<Object>) value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Object wrap(Class<?> type, Map<String, Object> map) {
+        return BOX.wrap((Class) type, map);
+    }
+
+    private static Map<String, Type> findTargets(Class<?> type) {
+        Map<String, Type> targets = new HashMap<>();
+
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (name.startsWith("get")
+                    && method.getParameterCount() == 0
+                    && !method.isDefault()
+                    && method.getDeclaringClass() != Slug.class
+                    && isConvertible(method.getGenericReturnType())) {
+
+                targets.put(name.substring(3), method.getGenericReturnType());
+            }
+        }
+
+        return (targets.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(targets));
+    }
+
+    /**
+     * A list that converts its elements on first access, and writes the
+     * converted elements back to the underlying list if it can.
+     */
+    private static final class SlugList extends AbstractList<Object>
+            implements RandomAccess {
+
+        private final Type element;
+        private final List<Object> list;
+
+        public SlugList(Type element, List<Object> list) {
+            this.element = element;
+            this.list = list;
+        }
+
+        @Override
+        public Object get(int index) {
+            Object value = list.get(index);
+            Object converted = convert(element, value);
+            if (converted != value) {
+                try {
+                    list.set(index, converted);
+                } catch (UnsupportedOperationException e) {
+                    // Read-only; convert it again next time.
+                }
+            }
+            return converted;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Object set(int index, Object value) {
+            return list.set(index, value);
+        }
+
+        @Override
+        public void add(int index, Object value) {
+            list.add(index, value);
+        }
+
+        @Override
+        public Object remove(int index) {
+            return convert(element, list.remove(index));
+        }
+    }
+
+    /**
+     * A map that converts its values on first access, and writes the
+     * converted values back to the underlying map if it can.
+     */
+    private static final class SlugMap extends AbstractMap<String, Object> {
+
+        private final Type element;
+        private final Map<String, Object> map;
+
+        public SlugMap(Type element, Map<String, Object> map) {
+            this.element = element;
+            this.map = map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = map.get(key);
+            Object converted = convert(element, value);
+            if (converted != value) {
+                try {
+                    map.put((String) key, converted);
+                } catch (UnsupportedOperationException e) {
+                    // Read-only; convert it again next time.
+                }
+            }
+            return converted;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return convert(element, map.remove(key));
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> iter =
+                            map.entrySet().iterator();
+
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return iter.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            return new ConvertingEntry(iter.next());
+                        }
+
+                        @Override
+                        public void remove() {
+                            iter.remove();
+                        }
+                    };
+                }
+            };
+        }
+
+        private final class ConvertingEntry
+                implements Entry<String, Object> {
+
+            private final Entry<String, Object> entry;
+
+            public ConvertingEntry(Entry<String, Object> entry) {
+                this.entry = entry;
+            }
+
+            @Override
+            public String getKey() {
+                return entry.getKey();
+            }
+
+            @Override
+            public Object getValue() {
+                Object value = entry.getValue();
+                Object converted = convert(element, value);
+                if (converted != value) {
+                    try {
+                        entry.setValue(converted);
+                    } catch (UnsupportedOperationException e) {
+                        // Read-only; convert it again next time.
+                    }
+                }
+                return converted;
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                return entry.setValue(value);
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (!(obj instanceof Entry<?, ?>)) {
+                    return false;
+                }
+                Entry<?, ?> that = (Entry<?, ?>) obj;
+                Object value = getValue();
+                return getKey().equals(that.getKey())
+                        && (value == null
+                                ? that.getValue() == null
+                                : value.equals(that.getValue()));
+            }
+
+            @Override
+            public int hashCode() {
+                Object value = getValue();
+                return getKey().hashCode()
+                        ^ (value == null ? 0 : value.hashCode());
+            }
+
+            @Override
+            public String toString() {
+                return getKey() + "=" + getValue();
+            }
+        }
+    }
+
+    private Conversions() {
+    }
+}
@@ -0,0 +1,53 @@
+package io.coronet.slug;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the converted values of members of a slug that can't store
+ * them in place of the raw ones, because it's immutable or wraps a map it
+ * doesn't own. A remembered value is only returned while the member's raw
+ * value is the same instance it was converted from, so repeated reads of
+ * an unchanged member get back the same converted object.
+ * <p>
+ * Immutable slugs are freely shared between threads, so this class is
+ * thread-safe; two threads converting the same member at once may each
+ * see their own converted value, but later reads settle on one of them.
+ */
+final class ConvertedMembers {
+
+    private final ConcurrentMap<String, Object[]> values =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the converted value of the given member, converting it only
+     * if it hasn't been converted from this raw value before.
+     *
+     * @param type the interface type of the slug
+     * @param member the name of the member
+     * @param value the raw value of the member
+     * @return the converted value
+     */
+    public Object convert(Class<?> type, String member, Object value) {
+        Object[] found = values.get(member);
+        if (found != null && found[0] == value) {
+            return found[1];
+        }
+
+        Object converted = Conversions.convertMember(type, member, value);
+        if (converted != value) {
+            Object[] entry = new Object[] { value, converted };
+            if (found == null) {
+                found = values.putIfAbsent(member, entry);
+            } else if (!values.replace(member, found, entry)) {
+                found = values.get(member);
+            } else {
+                found = null;
+            }
+            if (found != null && found[0] == value) {
+                return found[1];
+            }
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,252 @@
+package io.coronet.slug;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The storage for a {@link SlugLayout#MAP} slug created by a {@code SlugBox}.
+ * Behaves like a {@code HashMap}, except that {@link #share()} hands out a
+ * second map over the same entries in constant time. Both maps then treat
+ * the entries as read-only, and each takes a private copy the first time
+ * it's written to, so copies that are never modified never pay for copying.
+ * <p>
+ * Like {@code HashMap}, this class is not thread-safe.
+ */
+final class CopyOnWriteMap extends AbstractMap<String, Object> {
+
+    private Map<String, Object> map;
+    private boolean shared;
+    private boolean frozen;
+    private EntrySet entrySet;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public CopyOnWriteMap() {
+        this(new HashMap<>(), false);
+    }
+
+    /**
+     * Creates a new map containing a copy of the given entries.
+     *
+     * @param map the entries to copy
+     */
+    public CopyOnWriteMap(Map<String, ?> map) {
+        this(new HashMap<>(map), false);
+    }
+
+    /**
+     * Creates a new map over the given entries.
+     *
+     * @param map the entries
+     * @param shared true if {@code map} must not be modified in place
+     */
+    CopyOnWriteMap(Map<String, Object> map, boolean shared) {
+        this.map = map;
+        this.shared = shared;
+        this.frozen = false;
+    }
+
+    /**
+     * Returns a new map with the same entries as this one, sharing them
+     * until either map is modified.
+     *
+     * @return a new map with the same entries
+     */
+    public CopyOnWriteMap share() {
+        if (!frozen) {
+            shared = true;
+        }
+        return new CopyOnWriteMap(map, true);
+    }
+
+    /**
+     * Makes this map unmodifiable. Once frozen, its entries never change, so
+     * sharing them doesn't need to mark this map as shared.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Returns true if this map and the given map are currently sharing the
+     * same entries, which means they're equal.
+     *
+     * @param other the map to compare to
+     * @return true if the maps share their entries
+     */
+    public boolean sharesEntriesWith(CopyOnWriteMap other) {
+        return (map == other.map);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return writable().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!frozen && !map.containsKey(key)) {
+            return null;
+        }
+        return writable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        if (frozen) {
+            throw new UnsupportedOperationException("map is immutable");
+        }
+        map = new HashMap<>();
+        shared = false;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        EntrySet set = entrySet;
+        if (set == null) {
+            set = new EntrySet();
+            entrySet = set;
+        }
+        return set;
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * Returns the underlying map, copying it first if it's shared.
+     */
+    private Map<String, Object> writable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("map is immutable");
+        }
+        if (shared) {
+            map = new HashMap<>(map);
+            shared = false;
+        }
+        return map;
+    }
+
+    /**
+     * A view of the entries of the map. Iterators walk the entries as they
+     * were when iteration started; if the map is copied partway through
+     * because of a write, further writes through the iterator go to the
+     * copy.
+     */
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.entrySet().contains(o);
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    private final class EntryIterator
+            implements Iterator<Entry<String, Object>> {
+
+        private final Map<String, Object> snapshot;
+        private final Iterator<Entry<String, Object>> iterator;
+        private Entry<String, Object> last;
+
+        public EntryIterator() {
+            this.snapshot = map;
+            this.iterator = snapshot.entrySet().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            last = iterator.next();
+            // Always wrapped: a caller may hold on to an entry past a later
+            // share(), and writing the backing entry then would change the
+            // copy too.
+            return new WriteThroughEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            if (isOwned()) {
+                iterator.remove();
+            } else {
+                writable().remove(last.getKey());
+            }
+            last = null;
+        }
+
+        /**
+         * True if this iterator is walking the map's own (unshared) entries,
+         * which it can then modify directly.
+         */
+        private boolean isOwned() {
+            return (map == snapshot && !shared && !frozen);
+        }
+
+        private final class WriteThroughEntry
+                extends SimpleEntry<String, Object> {
+
+            private static final long serialVersionUID = 1L;
+
+            private final Entry<String, Object> entry;
+
+            public WriteThroughEntry(Entry<String, Object> entry) {
+                super(entry);
+                this.entry = entry;
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                if (isOwned()) {
+                    entry.setValue(value);
+                } else {
+                    writable().put(getKey(), value);
+                }
+                return super.setValue(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.coronet.slug;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes 64-bit content fingerprints of slugs and the values they hold.
+ * Unlike {@code hashCode()}, strings are hashed with a fixed 64-bit
+ * function, so fingerprints of slugs made of strings, numbers, booleans,
+ * byte arrays, and nested collections and slugs are the same in every
+ * process. Other values contribute their {@code hashCode()}, so they're only
+ * as stable as that is.
+ *
+ * @see Slug#fingerprint()
+ */
+final class Fingerprint {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0x100000001B3L;
+
+    private static final long TRUE = 0x5851F42D4C957F2DL;
+    private static final long FALSE = 0x14057B7EF767814FL;
+
+    /**
+     * Computes the fingerprint of a set of slug members. Like
+     * {@code Map.hashCode()}, this doesn't depend on the order of the
+     * entries.
+     *
+     * @param entries the members of a slug
+     * @return the fingerprint of the members
+     */
+    public static long of(Set<Map.Entry<String, Object>> entries) {
+        long result = 0;
+        for (Map.Entry<String, Object> entry : entries) {
+            result += entry(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Computes the fingerprint of a single value.
+     *
+     * @param value the value to fingerprint
+     * @return the fingerprint of the value
+     */
+    public static long of(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Slug<?>) {
+            return ((Slug<?>) value).fingerprint();
+        }
+        if (value instanceof CharSequence) {
+            return of((CharSequence) value);
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value ? TRUE : FALSE);
+        }
+        if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            return mix(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return mix(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            // Equal BigDecimals have the same scale, and so the same string.
+            return of(value.toString());
+        }
+        if (value instanceof Enum<?>) {
+            return of(((Enum<?>) value).name());
+        }
+        if (value instanceof byte[]) {
+            return of((byte[]) value);
+        }
+        if (value instanceof List<?>) {
+            long result = 1;
+            for (Object element : (List<?>) value) {
+                result = result * PRIME + of(element);
+            }
+            return mix(result);
+        }
+        if (value instanceof Collection<?>) {
+            long result = 0;
+            for (Object element : (Collection<?>) value) {
+                result += mix(of(element));
+            }
+            return result;
+        }
+        if (value instanceof Map<?, ?>) {
+            long result = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result += mix(of(entry.getKey()) + SEED * of(entry.getValue()));
+            }
+            return result;
+        }
+        return mix(value.hashCode());
+    }
+
+    private static long entry(String key, Object value) {
+        return mix(of(key) + SEED * of(value));
+    }
+
+    private static long of(CharSequence string) {
+        long result = SEED;
+        for (int i = 0; i < string.length(); ++i) {
+            result = (result ^ string.charAt(i)) * PRIME;
+        }
+        return mix(result);
+    }
+
+    private static long of(byte[] bytes) {
+        long result = SEED;
+        for (byte b : bytes) {
+            result = (result ^ (b & 0xFF)) * PRIME;
+        }
+        return mix(result);
+    }
+
+    /**
+     * The finalization step of MurmurHash3, which spreads every input bit
+     * across the whole result.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Fingerprint() {
+    }
+}
@@ -0,0 +1,59 @@
+package io.coronet.slug;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The table of canonical member names shared by generated slugs, their
+ * shapes, and deserializers. Each member name declared by a slug interface
+ * is registered here when its implementation is set up, as the same
+ * {@code String} instance that generated code uses as a constant. Parsers
+ * that look up the names they read get that instance back, so the string
+ * keys of a deserialized document are shared rather than allocated per
+ * document, their hash codes are already cached, and lookups of them
+ * succeed on an identity check.
+ * <p>
+ * Only declared member names are ever registered, so looking up names
+ * from untrusted input doesn't grow the table.
+ */
+public final class MemberNames {
+
+    private static final ConcurrentMap<String, String> NAMES =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given member name, or the name
+     * itself if it isn't a member of any slug type set up so far.
+     *
+     * @param name the member name
+     * @return the canonical instance of the name, or {@code name}
+     */
+    public static String canonical(String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        String found = NAMES.get(name);
+        return (found == null ? name : found);
+    }
+
+    /**
+     * Registers a declared member name, returning its canonical instance.
+     * The canonical instance is the {@link String#intern() interned} one,
+     * since that's what string constants in generated classes resolve to.
+     *
+     * @param name the member name
+     * @return the canonical instance of the name
+     */
+    static String register(String name) {
+        String found = NAMES.get(name);
+        if (found != null) {
+            return found;
+        }
+        String interned = name.intern();
+        found = NAMES.putIfAbsent(interned, interned);
+        return (found == null ? interned : found);
+    }
+
+    private MemberNames() {
+    }
+}
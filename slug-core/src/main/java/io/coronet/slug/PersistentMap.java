@@ -0,0 +1,456 @@
+package io.coronet.slug;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from member names to values, implemented as a hash array
+ * mapped trie. Adding or removing a member with {@link #with(String, Object)}
+ * returns a new map that shares all but a logarithmic number of its nodes
+ * with the original, so a series of one-member updates to a large immutable
+ * slug doesn't copy the whole thing each time.
+ */
+final class PersistentMap extends AbstractMap<String, Object> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The maximum depth of the trie: seven levels of bitmap nodes to consume
+     * all 32 bits of the hash, plus a collision node at the bottom.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * The empty map.
+     */
+    public static final PersistentMap EMPTY =
+            new PersistentMap(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns a persistent copy of the given map. Null values are skipped.
+     *
+     * @param map the map to copy
+     * @return a persistent map with the same members
+     */
+    public static PersistentMap copyOf(Map<String, Object> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap) map;
+        }
+
+        PersistentMap result = EMPTY;
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a map with the given member set to the given value, or
+     * removed if {@code value} is null.
+     *
+     * @param member the name of the member
+     * @param value the new value of the member, or null
+     * @return the updated map, or this map if nothing changed
+     * @throws NullPointerException if {@code member} is null
+     */
+    public PersistentMap with(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+
+        if (value == null) {
+            Node node = root.without(0, member.hashCode(), member);
+            if (node == root) {
+                return this;
+            }
+            if (node == null) {
+                return EMPTY;
+            }
+            return new PersistentMap(node, size - 1);
+        }
+
+        boolean[] added = new boolean[1];
+        Node node = root.with(0, member.hashCode(), member, value, added);
+        if (node == root) {
+            return this;
+        }
+        return new PersistentMap(node, (added[0] ? size + 1 : size));
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return root.find(0, key.hashCode(), (String) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (get(key) != null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator(root);
+            }
+        };
+    }
+
+    /**
+     * A node in the trie. Entries are stored in {@code array} as alternating
+     * keys and values; a null key means the value is a child node.
+     */
+    private abstract static class Node {
+
+        protected final Object[] array;
+
+        protected Node(Object[] array) {
+            this.array = array;
+        }
+
+        public abstract Object find(int shift, int hash, String key);
+
+        public abstract Node with(
+                int shift,
+                int hash,
+                String key,
+                Object value,
+                boolean[] added);
+
+        /**
+         * Returns this node without the given key, this node if it didn't
+         * contain the key, or null if the result would be empty.
+         */
+        public abstract Node without(int shift, int hash, String key);
+    }
+
+    /**
+     * An interior node with one entry for each bit set in its bitmap.
+     */
+    private static final class BitmapNode extends Node {
+
+        public static final BitmapNode EMPTY =
+                new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        public BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        public Object find(int shift, int hash, String key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+
+            if (k == null) {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            if (key.equals(k)) {
+                return v;
+            }
+            return null;
+        }
+
+        @Override
+        public Node with(
+                int shift,
+                int hash,
+                String key,
+                Object value,
+                boolean[] added) {
+
+            int bit = bit(hash, shift);
+            int i = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] a = new Object[array.length + 2];
+                System.arraycopy(array, 0, a, 0, i);
+                a[i] = key;
+                a[i + 1] = value;
+                System.arraycopy(array, i, a, i + 2, array.length - i);
+
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, a);
+            }
+
+            Object k = array[i];
+            Object v = array[i + 1];
+
+            if (k == null) {
+                Node child = ((Node) v).with(
+                        shift + BITS,
+                        hash,
+                        key,
+                        value,
+                        added);
+
+                if (child == v) {
+                    return this;
+                }
+                return replace(i, null, child);
+            }
+
+            if (key.equals(k)) {
+                if (value == v) {
+                    return this;
+                }
+                return replace(i, k, value);
+            }
+
+            added[0] = true;
+            return replace(i, null, split(
+                    shift + BITS,
+                    (String) k,
+                    v,
+                    hash,
+                    key,
+                    value));
+        }
+
+        @Override
+        public Node without(int shift, int hash, String key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+
+            if (k == null) {
+                Node child = ((Node) v).without(shift + BITS, hash, key);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    return replace(i, null, child);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, a.length - i);
+            return new BitmapNode(bitmap & ~bit, a);
+        }
+
+        private BitmapNode replace(int i, Object key, Object value) {
+            Object[] a = array.clone();
+            a[i] = key;
+            a[i + 1] = value;
+            return new BitmapNode(bitmap, a);
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        /**
+         * Creates a node holding two entries whose keys collided at the
+         * previous level.
+         */
+        private static Node split(
+                int shift,
+                String k1,
+                Object v1,
+                int h2,
+                String k2,
+                Object v2) {
+
+            int h1 = k1.hashCode();
+            if (h1 == h2) {
+                return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+            }
+
+            boolean[] added = new boolean[1];
+            return EMPTY
+                    .with(shift, h1, k1, v1, added)
+                    .with(shift, h2, k2, v2, added);
+        }
+    }
+
+    /**
+     * A leaf node holding entries whose keys have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        public CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        @Override
+        public Object find(int shift, int hash, String key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            return array[i + 1];
+        }
+
+        @Override
+        public Node with(
+                int shift,
+                int hash,
+                String key,
+                Object value,
+                boolean[] added) {
+
+            if (hash != this.hash) {
+                // Push this node down a level and try again.
+                int bit = BitmapNode.bit(this.hash, shift);
+                return new BitmapNode(bit, new Object[] { null, this })
+                        .with(shift, hash, key, value, added);
+            }
+
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] a = array.clone();
+                a[i + 1] = value;
+                return new CollisionNode(hash, a);
+            }
+
+            Object[] a = new Object[array.length + 2];
+            System.arraycopy(array, 0, a, 0, array.length);
+            a[array.length] = key;
+            a[array.length + 1] = value;
+
+            added[0] = true;
+            return new CollisionNode(hash, a);
+        }
+
+        @Override
+        public Node without(int shift, int hash, String key) {
+            if (hash != this.hash) {
+                return this;
+            }
+
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, a.length - i);
+            return new CollisionNode(hash, a);
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A depth-first iterator over the entries of the trie.
+     */
+    private static final class EntryIterator
+            implements Iterator<Entry<String, Object>> {
+
+        private final Object[][] arrays;
+        private final int[] positions;
+        private int depth;
+
+        public EntryIterator(Node root) {
+            this.arrays = new Object[MAX_DEPTH][];
+            this.positions = new int[MAX_DEPTH];
+            this.arrays[0] = root.array;
+            this.depth = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int i = positions[depth];
+
+                if (i >= array.length) {
+                    depth -= 1;
+                } else if (array[i] != null) {
+                    return true;
+                } else {
+                    positions[depth] = i + 2;
+                    depth += 1;
+                    arrays[depth] = ((Node) array[i + 1]).array;
+                    positions[depth] = 0;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Object[] array = arrays[depth];
+            int i = positions[depth];
+            positions[depth] = i + 2;
+
+            return new SimpleImmutableEntry<>((String) array[i], array[i + 1]);
+        }
+    }
+}
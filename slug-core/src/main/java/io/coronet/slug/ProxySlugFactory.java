@@ -0,0 +1,181 @@
+package io.coronet.slug;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * A factory for slugs implemented by a {@code java.lang.reflect.Proxy} over
+ * an {@link AbstractSlug}, rather than by a generated class. Every call goes
+ * through reflection, so these slugs are slower than generated ones, but
+ * creating the factory costs next to nothing. A {@code SlugBox} with tiering
+ * turned on uses one for each slug type until the type has been used enough
+ * to be worth generating a real implementation for.
+ *
+ * @param <T> the interface type of the slugs
+ * @see SlugBox.Builder#withTiering(int)
+ */
+final class ProxySlugFactory<T extends Slug<?>> implements SlugFactory<T> {
+
+    private final Class<T> type;
+    private final boolean wrap;
+    private final boolean tracking;
+
+    /**
+     * Creates a new factory.
+     *
+     * @param type the interface type of the slugs
+     * @param wrap true if {@link #create(Map)} should wrap the map it's
+     *             given, false to copy it
+     * @param tracking true if the slugs should track changes
+     */
+    public ProxySlugFactory(Class<T> type, boolean wrap, boolean tracking) {
+        this.type = type;
+        this.wrap = wrap;
+        this.tracking = tracking;
+    }
+
+    /**
+     * Returns true if slugs of the given type can be implemented by a
+     * proxy. Interfaces with default methods can't be on Java 8, since a
+     * proxy has no portable way to call them.
+     *
+     * @param type the slug interface
+     * @return true if the interface can be proxied
+     */
+    public static boolean canProxy(Class<?> type) {
+        for (Method method : type.getMethods()) {
+            if (method.isDefault()
+                    && method.getDeclaringClass() != Slug.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T create(Map<String, Object> map) {
+        if (map == null) {
+            throw new NullPointerException("map");
+        }
+        if (!wrap) {
+            map = new CopyOnWriteMap(map);
+        }
+        return proxy(map);
+    }
+
+    @Override
+    public T create() {
+        return proxy(new CopyOnWriteMap());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private T proxy(Map<String, Object> map) {
+        AbstractSlug<?> slug = new AbstractSlug(type, map);
+        if (tracking) {
+            slug.trackChanges();
+        }
+        return proxy(slug);
+    }
+
+    private T proxy(AbstractSlug<?> slug) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                new Handler(slug)));
+    }
+
+    /**
+     * Implements the interface's getters and setters in terms of
+     * {@link Slug#get(String)} and {@link Slug#set(String, Object)} on the
+     * underlying slug, and forwards everything else to it.
+     */
+    private final class Handler implements InvocationHandler {
+
+        private final AbstractSlug<?> slug;
+
+        public Handler(AbstractSlug<?> slug) {
+            this.slug = slug;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+
+            Class<?> declarer = method.getDeclaringClass();
+            if (declarer != Object.class && declarer != Slug.class) {
+                String name = method.getName();
+                String member = name.substring(3);
+
+                if (name.startsWith("get")) {
+                    Object value = slug.get(member);
+                    if (!method.getReturnType().isPrimitive()) {
+                        value = slug.convertMember(member, value);
+                    }
+                    return convert(value, method.getReturnType());
+                }
+
+                if (name.startsWith("set")) {
+                    slug.set(member, args[0]);
+                    return (method.getReturnType() == void.class
+                            ? null
+                            : proxy);
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(slug, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            // Methods that return the slug itself (or a modified copy of it)
+            // must return a proxy instead.
+            if (method.getReturnType() == Slug.class) {
+                if (result == slug) {
+                    return proxy;
+                }
+                return proxy((AbstractSlug<?>) result);
+            }
+            return result;
+        }
+
+        /**
+         * Converts the value of a member to the return type of its getter,
+         * the same way a generated getter would.
+         */
+        private Object convert(Object value, Class<?> returnType) {
+            if (!returnType.isPrimitive()) {
+                return returnType.cast(value);
+            }
+
+            if (returnType == boolean.class) {
+                return (value == null ? Boolean.FALSE : (Boolean) value);
+            }
+            if (returnType == char.class) {
+                return (value == null ? (char) 0 : (Character) value);
+            }
+
+            Number number = (value == null ? 0 : (Number) value);
+            if (returnType == int.class) {
+                return number.intValue();
+            }
+            if (returnType == long.class) {
+                return number.longValue();
+            }
+            if (returnType == double.class) {
+                return number.doubleValue();
+            }
+            if (returnType == float.class) {
+                return number.floatValue();
+            }
+            if (returnType == short.class) {
+                return number.shortValue();
+            }
+            return number.byteValue();
+        }
+    }
+}
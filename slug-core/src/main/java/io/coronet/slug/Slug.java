@@ -107,6 +107,85 @@ public interface Slug<T extends Slug<T>> {
      */
     T set(String member, Object value);
 
+    /**
+     * Returns a new slug of the same type as this one, with the member of
+     * the given name set to the given value (or removed, if {@code value} is
+     * null). This slug is left unchanged.
+     * <p>
+     * If this slug is immutable, so is the result, and the two share as
+     * much of their internal structure as possible; updating a large
+     * immutable slug one member at a time doesn't copy all of its members
+     * each time. If this slug is mutable, the result is an independent
+     * mutable copy.
+     * <p>
+     * Slugs created by a {@code SlugBox} all support this. The default
+     * implementation, which only exists so that other implementations of
+     * this interface keep compiling, has no way to create a copy and throws
+     * {@code UnsupportedOperationException}; use
+     * {@link SlugBox#copy(Slug)} followed by {@link #set} for those.
+     *
+     * @param member the name of the member to set
+     * @param value the new value of the member
+     * @return the updated slug
+     * @throws NullPointerException if {@code member} is null
+     * @throws UnsupportedOperationException if this slug doesn't support
+     *             copying itself
+     */
+    default T with(String member, Object value) {
+        if (member == null) {
+            throw new NullPointerException("member");
+        }
+        throw new UnsupportedOperationException(
+                type().getName() + " does not support with()");
+    }
+
+    /**
+     * Returns the names of the members that have been set or removed since
+     * this slug was created or since {@link #clearChanges()} was last
+     * called. The returned set is an unmodifiable live view. Changes are only
+     * recorded for slugs created by a {@code SlugBox} with change tracking
+     * enabled; for other slugs this returns null.
+     * <p>
+     * The default implementation doesn't track changes, and returns null.
+     *
+     * @return the names of the changed members, or null
+     * @see SlugBox.Builder#withChangeTracking(boolean)
+     */
+    default Set<String> changes() {
+        return null;
+    }
+
+    /**
+     * Forgets all changes recorded so far, so {@link #changes()} starts out
+     * empty again. Does nothing if this slug isn't tracking changes.
+     * <p>
+     * The default implementation doesn't track changes, and does nothing.
+     *
+     * @return this slug
+     * @throws UnsupportedOperationException if this slug is immutable
+     */
+    @SuppressWarnings("unchecked")
+    default T clearChanges() {
+        return (T) this;
+    }
+
+    /**
+     * Returns a 64-bit fingerprint of the members of this slug. Equal slugs
+     * have equal fingerprints; unlike {@code hashCode()}, the fingerprint of
+     * a slug whose members are strings, numbers, booleans, byte arrays,
+     * collections, and other slugs is the same in every process, so it can be
+     * used to detect duplicates across processes. Immutable slugs compute
+     * their fingerprint at most once.
+     * <p>
+     * The default implementation computes the fingerprint from
+     * {@link #entrySet()} each time it's called.
+     *
+     * @return the fingerprint of this slug
+     */
+    default long fingerprint() {
+        return Fingerprint.of(entrySet());
+    }
+
     /**
      * Returns a set of all the entries in this slug. The key of each
      * entry is the member name, the value is the corresponding value for
@@ -0,0 +1,282 @@
+package io.coronet.slug;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fast access to the declared members of a slug type by ordinal rather than
+ * by name, for generic code (mappers, validators, serializers) that would
+ * otherwise hash a member name on every {@link Slug#get(String)} or
+ * {@link Slug#set(String, Object)}. Resolve each member's ordinal once with
+ * {@link #ordinalOf(String)}, then use it for every access.
+ * <p>
+ * For slugs created by the {@code SlugBox} that created this accessor, in
+ * the {@link SlugLayout#FIELDS} and {@link SlugLayout#SHAPE} layouts, an
+ * ordinal is the member's slot index, so {@link #get(Slug, int)} and
+ * {@link #set(Slug, int, Object)} go straight to the generated slot switch
+ * or array. Other slugs of the same type are accessed by name.
+ *
+ * @param <T> the interface type of the slugs
+ * @see SlugBox#accessorFor(Class)
+ */
+public final class SlugAccessor<T extends Slug<?>> {
+
+    private static final MethodHandle GET;
+    private static final MethodHandle SET;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            GET = lookup.findVirtual(
+                    Slug.class,
+                    "get",
+                    MethodType.methodType(Object.class, String.class));
+
+            SET = lookup.findVirtual(
+                    Slug.class,
+                    "set",
+                    MethodType.methodType(
+                            Slug.class,
+                            String.class,
+                            Object.class));
+
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<T> type;
+    private final Class<?> implType;
+    private final String[] names;
+    private final Type[] types;
+    private final Map<String, Integer> ordinals;
+
+    // Filled in lazily; racing threads compute equivalent handles.
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+
+    /**
+     * Creates a new accessor.
+     *
+     * @param type the interface type of the slugs
+     * @param implType the slot-based implementation class whose slot indices
+     *             match the ordinals of the members, or null
+     * @param members the declared members of the type, in ordinal order
+     */
+    SlugAccessor(
+            Class<T> type,
+            Class<?> implType,
+            Map<String, Type> members) {
+
+        this.type = type;
+        this.implType = implType;
+
+        int size = members.size();
+        this.names = new String[size];
+        this.types = new Type[size];
+
+        Map<String, Integer> map = new HashMap<>();
+        int index = 0;
+        for (Map.Entry<String, Type> entry : members.entrySet()) {
+            names[index] = entry.getKey();
+            types[index] = entry.getValue();
+            map.put(entry.getKey(), index);
+            index += 1;
+        }
+
+        this.ordinals = map;
+        this.getters = new MethodHandle[size];
+        this.setters = new MethodHandle[size];
+    }
+
+    /**
+     * Returns the interface type of the slugs this accessor accesses.
+     *
+     * @return the slug type
+     */
+    public Class<T> type() {
+        return type;
+    }
+
+    /**
+     * Returns the number of declared members.
+     *
+     * @return the number of declared members
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the ordinal of the given declared member, or -1 if the type
+     * doesn't declare a member by that name.
+     *
+     * @param member the name of the member
+     * @return the ordinal of the member, or -1
+     */
+    public int ordinalOf(String member) {
+        Integer ordinal = ordinals.get(member);
+        if (ordinal == null) {
+            return -1;
+        }
+        return ordinal;
+    }
+
+    /**
+     * Returns the name of the member with the given ordinal.
+     *
+     * @param ordinal the ordinal of the member
+     * @return the name of the member
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     */
+    public String nameOf(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * Returns the declared type of the member with the given ordinal.
+     *
+     * @param ordinal the ordinal of the member
+     * @return the declared type of the member
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     */
+    public Type typeOf(int ordinal) {
+        return types[ordinal];
+    }
+
+    /**
+     * Reads the member with the given ordinal from the given slug. Equivalent
+     * to {@code slug.get(nameOf(ordinal))}.
+     *
+     * @param slug the slug to read from
+     * @param ordinal the ordinal of the member
+     * @return the current value of the member, or null
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     */
+    public Object get(T slug, int ordinal) {
+        String name = names[ordinal];
+        if (slug.getClass() == implType) {
+            return ((AbstractSlotSlug<?>) slug).getMember(ordinal, name);
+        }
+        return slug.get(name);
+    }
+
+    /**
+     * Writes the member with the given ordinal on the given slug. Equivalent
+     * to {@code slug.set(nameOf(ordinal), value)}.
+     *
+     * @param slug the slug to write to
+     * @param ordinal the ordinal of the member
+     * @param value the new value of the member, or null to remove it
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     * @throws UnsupportedOperationException if the slug is immutable
+     */
+    public void set(T slug, int ordinal, Object value) {
+        String name = names[ordinal];
+        if (slug.getClass() == implType) {
+            ((AbstractSlotSlug<?>) slug).setMember(ordinal, name, value);
+        } else {
+            slug.set(name, value);
+        }
+    }
+
+    /**
+     * Returns a method handle that reads the member with the given ordinal.
+     * If the interface declares a getter for the member, the handle invokes
+     * it and has type {@code (T)R}, where {@code R} is the getter's return
+     * type. Otherwise it invokes {@link Slug#get(String)} and has type
+     * {@code (T)Object}. Stored in a {@code static final} field, the handle
+     * can be inlined like a direct call to the getter.
+     *
+     * @param ordinal the ordinal of the member
+     * @return a getter handle for the member
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     */
+    public MethodHandle getter(int ordinal) {
+        MethodHandle handle = getters[ordinal];
+        if (handle == null) {
+            handle = findGetter(names[ordinal]);
+            getters[ordinal] = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * Returns a method handle that writes the member with the given ordinal.
+     * The handle invokes the interface's setter for the member and has the
+     * same type, with the slug as the first parameter.
+     *
+     * @param ordinal the ordinal of the member
+     * @return a setter handle for the member
+     * @throws IndexOutOfBoundsException if {@code ordinal} is out of range
+     */
+    public MethodHandle setter(int ordinal) {
+        MethodHandle handle = setters[ordinal];
+        if (handle == null) {
+            handle = findSetter(names[ordinal]);
+            setters[ordinal] = handle;
+        }
+        return handle;
+    }
+
+    private MethodHandle findGetter(String name) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+        try {
+
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals("get" + name)
+                        && method.getParameterCount() == 0
+                        && !method.isDefault()) {
+
+                    return lookup.unreflect(method)
+                            .asType(MethodType.methodType(
+                                    method.getReturnType(),
+                                    type));
+                }
+            }
+
+            return MethodHandles.insertArguments(GET, 1, name)
+                    .asType(MethodType.methodType(Object.class, type));
+
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MethodHandle findSetter(String name) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+        try {
+
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals("set" + name)
+                        && method.getParameterCount() == 1) {
+
+                    MethodType methodType = MethodType.methodType(
+                            method.getReturnType(),
+                            method.getParameterTypes())
+                            .insertParameterTypes(0, type);
+
+                    return lookup.unreflect(method).asType(methodType);
+                }
+            }
+
+            // Every declared member has a setter, but just in case.
+            return MethodHandles.insertArguments(SET, 1, name)
+                    .asType(MethodType.methodType(
+                            Slug.class,
+                            type,
+                            Object.class));
+
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
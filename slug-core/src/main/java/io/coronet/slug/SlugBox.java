@@ -1,13 +1,41 @@
 package io.coronet.slug;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -19,8 +47,11 @@ import org.objectweb.asm.Type;
  */
 public final class SlugBox {
 
-    private static final String ABSTRACT_SLUG =
-            Type.getInternalName(AbstractSlug.class);
+    private static final String ABSTRACT_FIELD_SLUG =
+            Type.getInternalName(AbstractFieldSlug.class);
+
+    private static final String SLUG_SHAPE =
+            Type.getInternalName(SlugShape.class);
 
     private static final String SLUG_FACTORY =
             Type.getInternalName(SlugFactory.class);
@@ -28,15 +59,81 @@ public final class SlugBox {
     private static final String OBJECT =
             Type.getInternalName(Object.class);
 
+    /**
+     * The version of the code generator, included in the signature of every
+     * generated implementation. Bump this whenever the generated code
+     * changes incompatibly so stale pre-generated classes get ignored.
+     */
+    private static final String GENERATOR_VERSION = "2";
+
+    private static final String SIGNATURE_FIELD = "SLUG_SIGNATURE";
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS;
+    static {
+        Map<Class<?>, Class<?>> map = new HashMap<>();
+
+        map.put(boolean.class, Boolean.class);
+        map.put(byte.class, Byte.class);
+        map.put(char.class, Character.class);
+        map.put(short.class, Short.class);
+        map.put(int.class, Integer.class);
+        map.put(long.class, Long.class);
+        map.put(float.class, Float.class);
+        map.put(double.class, Double.class);
+
+        WRAPPERS = Collections.unmodifiableMap(map);
+    }
+
+
+    /**
+     * Creates a new builder for a {@code SlugBox}.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
 
-    private final SlugCache cache = new SlugCache();
+    private final SlugCache cache = new SlugCache(this);
+    private final SlugLayout layout;
+    private final boolean pregenerated;
+    private final boolean hidden;
+    private final boolean tracking;
+    private final int tiering;
+    private final ClassCache classCache;
+    private final SlugBoxListener listener;
+    private final SlugInterner interner;
+    private final boolean countHits;
+    private final Counters counters = new Counters();
 
     /**
      * Creates a new SlugBox with a default configuration.
-     *
-     * TODO: Is there a non-default configuration?
      */
     public SlugBox() {
+        this(new Builder());
+    }
+
+    private SlugBox(Builder builder) {
+        this.layout = builder.layout;
+        this.pregenerated = builder.pregenerated;
+        this.hidden = builder.hidden;
+        this.tracking = builder.tracking;
+        this.tiering = builder.tiering;
+        this.classCache = (builder.classCache == null
+                ? null
+                : new ClassCache(builder.classCache));
+        this.listener = builder.listener;
+        this.interner = builder.interner;
+        this.countHits = builder.cacheStats;
+    }
+
+    /**
+     * Returns the layout of the slug implementations this box generates.
+     *
+     * @return the layout of generated slugs
+     */
+    public SlugLayout getLayout() {
+        return layout;
     }
 
 
@@ -48,6 +145,9 @@ public final class SlugBox {
      */
     public <T extends Slug<?>> T create(Class<T> type) {
         SlugFactory<T> factory = factoryFor(type);
+        if (layout == SlugLayout.MAP) {
+            return factory.create(new CopyOnWriteMap());
+        }
         return factory.create();
     }
 
@@ -60,11 +160,18 @@ public final class SlugBox {
      * @return a new implementation of the given slug interface
      */
     public <T extends Slug<?>> T create(Class<T> type, Map<String, ?> map) {
-        return wrap(type, new HashMap<>(map));
+        if (layout != SlugLayout.MAP) {
+            // Other layouts copy the map's entries into their own storage.
+            @SuppressWarnings("unchecked")
+            Map<String, Object> m = (Map<String, Object>) map;
+            return wrap(type, m);
+        }
+        return wrap(type, new CopyOnWriteMap(map));
     }
 
     /**
-     * Creates a new, mutable slug directly wrapping the given map.
+     * Creates a new, mutable slug directly wrapping the given map. Layouts
+     * other than {@link SlugLayout#MAP} copy the entries of the map instead.
      *
      * @param type the interface type of the slug to create
      * @param map the map of values to wrap
@@ -75,8 +182,95 @@ public final class SlugBox {
         return factory.create(map);
     }
 
+    /**
+     * Creates a new, mutable slug taking ownership of the given map as its
+     * initial state. Unlike {@link #wrap(Class, Map)}, the slug keeps the
+     * cheap {@code copy} and {@code with} of the {@link SlugLayout#MAP}
+     * layout; unlike {@link #create(Class, Map)}, the map isn't copied.
+     * Layouts other than {@link SlugLayout#MAP} copy the entries of the map
+     * instead.
+     * <p>
+     * The caller must not use the map again after passing it here.
+     *
+     * @param type the interface type of the slug to create
+     * @param map the map of initial member values for the slug
+     * @return a new implementation of the given slug interface
+     */
+    public <T extends Slug<?>> T adopt(Class<T> type, Map<String, Object> map) {
+        if (map == null) {
+            throw new NullPointerException("map");
+        }
+        if (layout != SlugLayout.MAP) {
+            return wrap(type, map);
+        }
+        return wrap(type, new CopyOnWriteMap(map, false));
+    }
+
+    /**
+     * Creates a new, mutable flyweight slug over a buffer holding its
+     * members, as returned by {@link #encode(Slug)}. The buffer may be
+     * direct, keeping the members out of the garbage-collected heap.
+     * Members are decoded from the buffer (starting at its current position)
+     * each time they're read, and written back to it in place; writes to a
+     * read-only buffer, or that don't fit, move the slug to a copy of the
+     * buffer instead.
+     *
+     * @param type the interface type of the slug to create
+     * @param buffer the buffer holding the slug's members
+     * @return a new implementation of the given slug interface
+     * @throws IllegalStateException if this box doesn't use the
+     *             {@link SlugLayout#BUFFER} layout
+     * @throws IllegalArgumentException if the buffer doesn't hold a slug
+     */
+    public <T extends Slug<?>> T wrap(Class<T> type, ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new NullPointerException("buffer");
+        }
+        if (layout != SlugLayout.BUFFER) {
+            throw new IllegalStateException(
+                    "Buffers can only be wrapped by a box with the BUFFER"
+                    + " layout, not " + layout);
+        }
+
+        T slug = factoryFor(type).create();
+        ((AbstractBufferSlug<?>) slug).attach(buffer);
+        return slug;
+    }
+
+    /**
+     * Returns a read-only view of the binary encoding of a slug created by a
+     * box with the {@link SlugLayout#BUFFER} layout. The bytes can be copied
+     * anywhere (into a large off-heap region, say) and later turned back
+     * into a slug with {@link #wrap(Class, ByteBuffer)}.
+     *
+     * @param slug the slug to encode
+     * @return a read-only buffer holding the encoded slug
+     * @throws IllegalArgumentException if {@code slug} doesn't have the
+     *             {@code BUFFER} layout
+     * @throws IllegalStateException if the slug has members that aren't
+     *             stored in its buffer, such as undeclared members or ones
+     *             of non-primitive, non-string types
+     */
+    public ByteBuffer encode(Slug<?> slug) {
+        if (slug == null) {
+            throw new NullPointerException("slug");
+        }
+        if (!(slug instanceof AbstractBufferSlug<?>)) {
+            throw new IllegalArgumentException(
+                    "Not a BUFFER slug: " + slug.getClass());
+        }
+        return ((AbstractBufferSlug<?>) slug).encoded();
+    }
+
     /**
      * Creates a mutable copy of the given slug.
+     * <p>
+     * When possible, the copy shares the original's storage until either of
+     * them is next modified, so a copy that's only read is nearly free. This
+     * is the case for slugs created by this box (or by another box with the
+     * same layout, for {@link SlugLayout#MAP}), but not for slugs that wrap
+     * a map passed to {@link #wrap(Class, Map)}, since that map could be
+     * modified behind the slug's back.
      *
      * @param slug the slug to copy
      * @return a new, independent copy of the slug
@@ -87,19 +281,53 @@ public final class SlugBox {
 
     /**
      * Creates a mutable copy of the given slug with a possibly-different
-     * interface type.
+     * interface type. The copy shares storage with the original where
+     * possible, as described for {@link #copy(Slug)}.
      *
      * @param type the new interface type to cast the copy to
      * @param slug the slug to copy
      * @return a new, independent copy of the slug implementing the given type
      */
     public <T extends Slug<T>> T copy(Class<T> type, Slug<?> slug) {
+        if (slug instanceof AbstractSlug<?> && layout == SlugLayout.MAP) {
+            Map<String, Object> shared = ((AbstractSlug<?>) slug).share();
+            if (shared != null) {
+                return wrap(type, shared);
+            }
+        } else if (slug instanceof AbstractSlotSlug<?>
+                && slug.getClass() == getOrCreateEntry(type).implType) {
+
+            @SuppressWarnings("unchecked")
+            T copy = (T) ((AbstractSlotSlug<?>) slug).share();
+            return copy;
+        }
+
         return create(type, slug.asMap());
     }
 
+    /**
+     * Makes the given slug immutable. If this box has an interner, returns
+     * the canonical instance of the slug instead of the slug itself, so
+     * that equal immutable slugs share one instance.
+     *
+     * @param slug the slug to make immutable
+     * @return the slug, or its canonical instance
+     * @see Builder#withInterner(SlugInterner)
+     */
+    public <T extends Slug<?>> T makeImmutable(T slug) {
+        if (slug == null) {
+            throw new NullPointerException("slug");
+        }
+        if (interner == null) {
+            slug.makeImmutable();
+            return slug;
+        }
+        return interner.makeImmutable(slug);
+    }
+
     /**
      * Creates a view of the given slug with a possibly-different interface
-     * type.
+     * type. Layouts other than {@link SlugLayout#MAP} return a copy instead.
      *
      * @param type the new interface type to cast the slug to
      * @param slug the slug to cast
@@ -133,241 +361,1671 @@ public final class SlugBox {
         return getOrCreateEntry(type).members;
     }
 
-    private <T extends Slug<?>> CacheEntry<T> getOrCreateEntry(Class<T> type) {
-        if (type == null) {
-            throw new NullPointerException("type");
+    /**
+     * Gets an accessor for the declared members of the given slug type,
+     * which reads and writes them by ordinal instead of by name.
+     *
+     * @param type the slug type to access
+     * @return an accessor for the members of the given slug type
+     */
+    public <T extends Slug<?>> SlugAccessor<T> accessorFor(Class<T> type) {
+        return getOrCreateEntry(type).accessor;
+    }
+
+    /**
+     * Generates the implementations of the given slug interfaces in parallel
+     * on the common fork/join pool, so that creating instances of them
+     * later doesn't stall on code generation. Call this during startup,
+     * before taking traffic. With tiering turned on, the given interfaces
+     * skip straight to their generated implementations.
+     *
+     * @param types the slug interfaces to generate implementations for
+     * @return the time in nanoseconds spent generating (or waiting for
+     *         another thread to generate) each implementation, in the order
+     *         each interface first appears in {@code types}; an interface
+     *         listed more than once is only generated and timed once
+     * @see #preload(Collection, ForkJoinPool)
+     */
+    public Map<Class<?>, Long> preload(
+            Collection<? extends Class<? extends Slug<?>>> types) {
+
+        return preload(types, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates the implementations of the given slug interfaces in parallel
+     * on the given fork/join pool. Interfaces whose implementations have
+     * already been generated take next to no time. If generating any
+     * implementation fails, the exception is rethrown once the rest are
+     * done.
+     *
+     * @param types the slug interfaces to generate implementations for
+     * @param pool the pool to generate them on
+     * @return the time in nanoseconds spent generating (or waiting for
+     *         another thread to generate) each implementation, in the order
+     *         each interface first appears in {@code types}; an interface
+     *         listed more than once is only generated and timed once
+     */
+    public Map<Class<?>, Long> preload(
+            Collection<? extends Class<? extends Slug<?>>> types,
+            ForkJoinPool pool) {
+
+        if (types == null) {
+            throw new NullPointerException("types");
+        }
+        if (pool == null) {
+            throw new NullPointerException("pool");
         }
 
-        CacheEntry<T> entry = cache.get(type);
-        if (entry != null) {
-            return entry;
+        Set<Class<? extends Slug<?>>> unique = new LinkedHashSet<>();
+        for (Class<? extends Slug<?>> type : types) {
+            if (type == null) {
+                throw new NullPointerException("type");
+            }
+            unique.add(type);
         }
 
-        synchronized (type) {
-            entry = cache.get(type);
-            if (entry == null) {
-                entry = createEntry(type);
-                cache.put(type, entry);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(unique.size());
+        for (Class<? extends Slug<?>> type : unique) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                long start = System.nanoTime();
+                cache.generated(type);
+                return System.nanoTime() - start;
+            }));
+        }
+
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            for (ForkJoinTask<Long> task : tasks) {
+                task.fork();
             }
-            return entry;
+            for (ForkJoinTask<Long> task : tasks) {
+                task.quietlyJoin();
+            }
+        }));
+
+        Map<Class<?>, Long> timings = new LinkedHashMap<>();
+        Iterator<Class<? extends Slug<?>>> iter = unique.iterator();
+        for (ForkJoinTask<Long> task : tasks) {
+            timings.put(iter.next(), task.join());
         }
+        return Collections.unmodifiableMap(timings);
     }
 
-    private <T extends Slug<?>> CacheEntry<T> createEntry(Class<T> type) {
-        if (!type.isInterface()) {
-            throw new IllegalArgumentException(type + " is not an interface");
-        }
-        if ((type.getModifiers() & Modifier.PUBLIC) == 0) {
-            throw new IllegalArgumentException(type + " is not public");
+    private <T extends Slug<?>> CacheEntry<T> getOrCreateEntry(Class<T> type) {
+        if (type == null) {
+            throw new NullPointerException("type");
         }
 
-        DirectLoader loader = new DirectLoader(type.getClassLoader());
+        return cache.entry(type);
+    }
 
-        Map<String, java.lang.reflect.Type> members = new HashMap<>();
+    /**
+     * Creates the cache entry for the given slug type. If {@code tier} is
+     * true and tiering is turned on, the entry may be an interim one whose
+     * factory creates proxies until the type has been used enough to be
+     * worth generating an implementation for.
+     */
+    private <T extends Slug<?>> CacheEntry<T> createEntry(
+            Class<T> type,
+            boolean tier) {
 
-        Class<?> implType = createSlugImpl(loader, type, members);
-        Class<?> factoryType = createFactory(loader, implType);
+        long start = System.nanoTime();
+        checkInterface(type);
 
+        Map<String, java.lang.reflect.Type> members = getDeclaredMembers(type);
+        SlugShape shape = new SlugShape(members);
         members = Collections.unmodifiableMap(members);
 
-        try {
+        Class<?> implType = null;
+        Class<?> factoryType = null;
+        if (pregenerated) {
+            factoryType = findPregeneratedFactory(type);
+        }
 
-            @SuppressWarnings("unchecked")
-            SlugFactory<T> factory = (SlugFactory<T>) factoryType.newInstance();
-            return new CacheEntry<T>(factory, members);
+        SlugBoxListener.Source source = SlugBoxListener.Source.PREGENERATED;
+        int bytes = 0;
+
+        if (factoryType == null && tier && tiering > 0
+                && layout != SlugLayout.CONCURRENT
+                && layout != SlugLayout.BUFFER
+                && ProxySlugFactory.canProxy(type)) {
+
+            checkMethods(type);
+
+            SlugFactory<T> factory = new TieredFactory<>(
+                    this,
+                    type,
+                    new ProxySlugFactory<>(
+                            type,
+                            (layout == SlugLayout.MAP),
+                            tracking),
+                    tiering);
+
+            return created(
+                    new CacheEntry<T>(type, factory, null, members),
+                    SlugBoxListener.Source.PROXY,
+                    start,
+                    0);
+        }
 
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new IllegalStateException("Error creating factory", e);
+        if (factoryType == null && hidden && HiddenClasses.isSupported()) {
+            String implName = type.getName() + "$$Impl";
+            byte[] anchor = writeLookupAnchor(type);
+
+            MethodHandles.Lookup lookup = null;
+            if (classCache != null) {
+                byte[] cached = classCache.read(implName);
+                if (cached != null) {
+                    try {
+                        lookup = HiddenClasses.define(type, anchor, cached);
+                        if (!isCurrent(type, lookup.lookupClass())) {
+                            lookup = null;
+                        }
+                        source = SlugBoxListener.Source.CACHED;
+                        bytes = cached.length;
+                    } catch (IllegalStateException e) {
+                        // Corrupt or for some other interface; regenerate.
+                        lookup = null;
+                    }
+                }
+            }
+
+            if (lookup == null) {
+                byte[] impl = writeSlugImpl(type, shape);
+                lookup = HiddenClasses.define(type, anchor, impl);
+                if (classCache != null) {
+                    classCache.write(implName, impl);
+                }
+                source = SlugBoxListener.Source.GENERATED;
+                bytes = impl.length;
+            }
+
+            return created(
+                    new CacheEntry<T>(
+                            type,
+                            withTracking(createHiddenFactory(lookup, shape)),
+                            lookup.lookupClass(),
+                            members),
+                    source,
+                    start,
+                    bytes);
         }
-    }
 
-    private Class<?> createSlugImpl(
-            DirectLoader loader,
-            Class<?> iface,
-            Map<String, java.lang.reflect.Type> members) {
+        if (factoryType == null && classCache != null) {
+            byte[] impl = classCache.read(type.getName() + "$$Impl");
+            byte[] factory = classCache.read(
+                    type.getName() + "$$Impl$$Factory");
 
-        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+            factoryType = defineCachedFactory(type, impl, factory);
+            if (factoryType != null) {
+                source = SlugBoxListener.Source.CACHED;
+                bytes = impl.length + factory.length;
+            }
+        }
 
-        String ifaceName = Type.getInternalName(iface);
-        String implName = ifaceName + "$$Impl";
+        if (factoryType == null) {
+            DirectLoader loader = new DirectLoader(type.getClassLoader());
 
-        // public static final class $Impl extends AbstractSlug<${Iface}>
-        //         implements ${Iface} {
-        writer.visit(
-                Opcodes.V1_8,
-                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
-                implName,
-                null,
-                ABSTRACT_SLUG,
-                new String[] { ifaceName });
+            byte[] impl = writeSlugImpl(type, shape);
+            byte[] factory = writeFactory(
+                    Type.getInternalName(type) + "$$Impl");
 
-        writeConstructor(writer, ifaceName);
-        writeMethods(writer, iface, members);
+            implType = loader.loadClass(impl);
+            factoryType = loader.loadClass(factory);
 
-        // }
-        writer.visitEnd();
+            if (classCache != null) {
+                classCache.write(type.getName() + "$$Impl", impl);
+                classCache.write(type.getName() + "$$Impl$$Factory", factory);
+            }
+
+            source = SlugBoxListener.Source.GENERATED;
+            bytes = impl.length + factory.length;
+        }
+
+        try {
+
+            if (implType == null) {
+                implType = Class.forName(
+                        type.getName() + "$$Impl",
+                        false,
+                        factoryType.getClassLoader());
+            }
+
+            Object instance;
+            if (hasMapConstructor()) {
+                instance = factoryType.newInstance();
+            } else {
+                instance = factoryType.getConstructor(SlugShape.class)
+                        .newInstance(shape);
+            }
 
-        return loader.loadClass(writer.toByteArray());
+            @SuppressWarnings("unchecked")
+            SlugFactory<T> factory = (SlugFactory<T>) instance;
+            return created(
+                    new CacheEntry<T>(
+                            type,
+                            withTracking(factory),
+                            implType,
+                            members),
+                    source,
+                    start,
+                    bytes);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Error creating factory", e);
+        }
     }
 
-    private void writeConstructor(
-            ClassWriter writer,
-            String ifaceName) {
+    /**
+     * Records the creation of a cache entry in this box's stats, and tells
+     * the listener (if any) about it.
+     */
+    private <T extends Slug<?>> CacheEntry<T> created(
+            CacheEntry<T> entry,
+            SlugBoxListener.Source source,
+            long start,
+            int bytes) {
+
+        long nanos = System.nanoTime() - start;
+        counters.created(source, nanos, bytes);
+
+        if (listener != null) {
+            try {
+                listener.entryCreated(entry.accessor.type(), source, nanos,
+                        bytes);
+            } catch (RuntimeException e) {
+                // A broken listener mustn't break slug creation.
+            }
+        }
 
-        {
-            // private ${IfaceType}$$Impl(Map<String, Object> map) {
-            MethodVisitor visitor = writer.visitMethod(
-                    Opcodes.ACC_PUBLIC,
-                    "<init>",
-                    "(Ljava/util/Map;)V",
-                    null, // TODO: generics stuff?
-                    null);
+        return entry;
+    }
 
-            visitor.visitCode();
+    /**
+     * Returns a snapshot of this box's activity so far: the slug types it
+     * has set up, the time and bytecode that took, and the hit rate of its
+     * cache of implementations. Cache hits are only counted by boxes built
+     * {@link Builder#withCacheStats(boolean) with cache stats} turned on.
+     *
+     * @return a snapshot of this box's stats
+     */
+    public SlugBoxStats stats() {
+        return counters.snapshot();
+    }
 
-            // super(map, ${IfaceType}.class);
-            visitor.visitVarInsn(Opcodes.ALOAD, 0);
-            visitor.visitLdcInsn(Type.getObjectType(ifaceName));
-            visitor.visitVarInsn(Opcodes.ALOAD, 1);
-            visitor.visitMethodInsn(
-                    Opcodes.INVOKESPECIAL,
-                    ABSTRACT_SLUG,
-                    "<init>",
-                    "(Ljava/lang/Class;Ljava/util/Map;)V",
-                    false);
+    /**
+     * Wraps the given factory so that the slugs it creates track changes, if
+     * this box is configured to.
+     */
+    private <T extends Slug<?>> SlugFactory<T> withTracking(
+            SlugFactory<T> factory) {
 
-            // }
-            visitor.visitInsn(Opcodes.RETURN);
-            visitor.visitMaxs(3, 0);
-            visitor.visitEnd();
+        if (!tracking) {
+            return factory;
         }
+        return new TrackingFactory<>(factory);
     }
 
-    private void writeMethods(
-            ClassWriter writer,
-            Class<?> iface,
-            Map<String, java.lang.reflect.Type> members) {
+    /**
+     * Creates a factory for a slug implementation that's been defined as a
+     * hidden class. A hidden class can't be referred to by name, so instead
+     * of a generated factory class, the factory calls the implementation's
+     * constructors through method handles.
+     */
+    private <T extends Slug<?>> SlugFactory<T> createHiddenFactory(
+            MethodHandles.Lookup lookup,
+            SlugShape shape) {
 
-        for (Method method : iface.getMethods()) {
-            if (method.getDeclaringClass() == Slug.class) {
-                continue;
-            }
-            if (method.isDefault()) {
-                continue;
-            }
-            // TODO: do we need to explicitly skip synthetic/bridge methods?
+        Class<?> impl = lookup.lookupClass();
 
-            String name = method.getName();
+        try {
 
-            if (name.startsWith("get")) {
-                writeGetter(writer, method, name.substring(3));
-            } else if (name.startsWith("set")) {
-                writeSetter(writer, method, name.substring(3), iface, members);
-            } else {
-                throw new IllegalStateException(
-                        "Unimplementable method: " + method);
+            if (hasMapConstructor()) {
+                // new Impl(map)
+                MethodHandle wrap = lookup.findConstructor(
+                        impl,
+                        MethodType.methodType(void.class, Map.class));
+
+                return new HiddenFactory<>(wrap, null);
             }
+
+            // new Impl(shape, map)
+            MethodHandle wrap = MethodHandles.insertArguments(
+                    lookup.findConstructor(
+                            impl,
+                            MethodType.methodType(
+                                    void.class,
+                                    SlugShape.class,
+                                    Map.class)),
+                    0,
+                    shape);
+
+            // new Impl(shape)
+            MethodHandle create = MethodHandles.insertArguments(
+                    lookup.findConstructor(
+                            impl,
+                            MethodType.methodType(
+                                    void.class,
+                                    SlugShape.class)),
+                    0,
+                    shape);
+
+            return new HiddenFactory<>(wrap, create);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Error creating factory", e);
         }
     }
 
-    private void writeGetter(
-            ClassWriter writer,
-            Method method,
-            String name) {
+    /**
+     * Generates a class in the same package as the given interface with a
+     * package-private static method returning a {@code Lookup} on itself.
+     * Only code in the interface's own module can obtain a full-privilege
+     * lookup there, which is what defining a hidden class requires. Since
+     * the method isn't public, this grants nothing that a caller with
+     * package access couldn't already do.
+     */
+    private static byte[] writeLookupAnchor(Class<?> iface) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 
-        if (method.getParameterCount() != 0) {
-            throw new IllegalStateException(
-                    "Cannot implement method with parameters: " + method);
-        }
+        String anchorName = Type.getInternalName(iface) + "$$Lookup";
 
-        if (method.getReturnType() == void.class) {
-            throw new IllegalStateException(
-                    "Cannot implement void method: " + method);
-        }
+        // final class ${iface}$$Lookup {
+        writer.visit(
+                Opcodes.V1_8,
+                Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+                anchorName,
+                null,
+                OBJECT,
+                null);
 
-        // ${ReturnType} get${name}() {
+        // static Lookup lookup() {
         MethodVisitor visitor = writer.visitMethod(
-                Opcodes.ACC_PUBLIC,
-                method.getName(),
-                Type.getMethodDescriptor(method),
-                null, // TODO: Generics stuff?
+                Opcodes.ACC_STATIC,
+                "lookup",
+                "()Ljava/lang/invoke/MethodHandles$Lookup;",
+                null,
                 null);
 
         visitor.visitCode();
 
-        // temp0 = super.get("${name}");
-        visitor.visitVarInsn(Opcodes.ALOAD, 0);
-        visitor.visitLdcInsn(name);
+        // return MethodHandles.lookup();
         visitor.visitMethodInsn(
-                Opcodes.INVOKESPECIAL,
-                ABSTRACT_SLUG,
-                "get",
-                "(Ljava/lang/String;)Ljava/lang/Object;",
+                Opcodes.INVOKESTATIC,
+                "java/lang/invoke/MethodHandles",
+                "lookup",
+                "()Ljava/lang/invoke/MethodHandles$Lookup;",
                 false);
-
-        // temp1 = (${ReturnType}) temp0;
-        visitor.visitTypeInsn(
-                Opcodes.CHECKCAST,
-                Type.getReturnType(method).getInternalName());
-
-        // return temp1;
         visitor.visitInsn(Opcodes.ARETURN);
 
         // }
-        visitor.visitMaxs(2, 0);
+        visitor.visitMaxs(1, 0);
         visitor.visitEnd();
-    }
-
-    private void writeSetter(
-            ClassWriter writer,
-            Method method,
-            String name,
-            Class<?> iface,
-            Map<String, java.lang.reflect.Type> members) {
 
-        if (method.getParameterCount() != 1) {
-            throw new IllegalStateException(
-                    "Setter must have exactly one parameter: " + method);
-        }
+        // }
+        writer.visitEnd();
 
-        if (method.getReturnType() != void.class
-                && method.getReturnType() != iface) {
+        return writer.toByteArray();
+    }
 
-            throw new IllegalStateException(
-                    "Setter must return void or the interface type: "
-                    + method);
+    /**
+     * Generates the implementation and factory classes for the given slug
+     * type without loading them, for use by build-time tooling. The classes
+     * are returned in definition order (implementation first), keyed by
+     * their binary names. If they're written to the classpath alongside the
+     * interface, a {@code SlugBox} with the same layout will find and use
+     * them instead of generating its own at runtime.
+     *
+     * @param type the interface type of the slug
+     * @return the generated class files, keyed by binary class name
+     * @throws IllegalArgumentException if {@code type} is not a public
+     *             interface
+     * @throws IllegalStateException if {@code type} declares a method that
+     *             can't be implemented
+     */
+    public Map<String, byte[]> generateClasses(Class<? extends Slug<?>> type) {
+        if (type == null) {
+            throw new NullPointerException("type");
         }
+        checkInterface(type);
+
+        SlugShape shape = new SlugShape(getDeclaredMembers(type));
+        String implName = Type.getInternalName(type) + "$$Impl";
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put(
+                type.getName() + "$$Impl",
+                writeSlugImpl(type, shape));
+        classes.put(
+                type.getName() + "$$Impl$$Factory",
+                writeFactory(implName));
+        return classes;
+    }
 
-        members.put(name, method.getGenericParameterTypes()[0]);
-
-        // ${Iface} set${name}(${ParamType} value) {
+    private static void checkInterface(Class<?> type) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException(type + " is not an interface");
+        }
+        if ((type.getModifiers() & Modifier.PUBLIC) == 0) {
+            throw new IllegalArgumentException(type + " is not public");
+        }
+    }
+
+    /**
+     * Checks up front that every method of the given interface could be
+     * implemented, throwing the same exceptions that generating an
+     * implementation would. Used when generation is deferred.
+     */
+    private void checkMethods(Class<?> iface) {
+        for (Method method : getSlugMethods(iface)) {
+            String name = method.getName();
+
+            if (name.startsWith("get")) {
+                if (method.getParameterCount() != 0) {
+                    throw new IllegalStateException(
+                            "Cannot implement method with parameters: "
+                            + method);
+                }
+                if (method.getReturnType() == void.class) {
+                    throw new IllegalStateException(
+                            "Cannot implement void method: " + method);
+                }
+            } else if (name.startsWith("set")) {
+                checkSetter(method, iface);
+            } else {
+                throw new IllegalStateException(
+                        "Unimplementable method: " + method);
+            }
+        }
+    }
+
+    /**
+     * Looks for implementation and factory classes generated at build time
+     * for the given slug type. Returns the factory class, or null if there
+     * are none or if they were generated for a different layout or a
+     * different version of the interface.
+     */
+    private Class<?> findPregeneratedFactory(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+
+        try {
+
+            Class<?> impl = Class.forName(
+                    type.getName() + "$$Impl",
+                    false,
+                    loader);
+
+            if (!isCurrent(type, impl)) {
+                return null;
+            }
+
+            return Class.forName(
+                    type.getName() + "$$Impl$$Factory",
+                    false,
+                    loader);
+
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Defines the implementation and factory classes for the given slug
+     * type from class files read from the class cache. Returns the factory
+     * class, or null if they weren't cached or were cached for a different
+     * layout or a different version of the interface.
+     */
+    private Class<?> defineCachedFactory(
+            Class<?> type,
+            byte[] impl,
+            byte[] factory) {
+
+        if (impl == null || factory == null) {
+            return null;
+        }
+
+        try {
+
+            DirectLoader loader = new DirectLoader(type.getClassLoader());
+            if (!isCurrent(type, loader.loadClass(impl))) {
+                return null;
+            }
+
+            Class<?> factoryType = loader.loadClass(factory);
+            if (hasMapConstructor()) {
+                factoryType.getConstructor();
+            } else {
+                factoryType.getConstructor(SlugShape.class);
+            }
+            return factoryType;
+
+        } catch (NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the given implementation class was generated by this
+     * version of the generator, for this box's layout and the current
+     * version of the interface.
+     */
+    private boolean isCurrent(Class<?> type, Class<?> impl) {
+        if (impl.getSuperclass() != baseClass()) {
+            return false;
+        }
+
+        try {
+            Object signature = impl.getField(SIGNATURE_FIELD).get(null);
+            return signature(type).equals(signature);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the methods of the given interface that need to be implemented,
+     * in a stable order.
+     */
+    private static List<Method> getSlugMethods(Class<?> iface) {
+        List<Method> methods = new ArrayList<>();
+
+        for (Method method : iface.getMethods()) {
+            if (method.getDeclaringClass() == Slug.class) {
+                continue;
+            }
+            if (method.isDefault()) {
+                continue;
+            }
+            // TODO: do we need to explicitly skip synthetic/bridge methods?
+
+            methods.add(method);
+        }
+
+        methods.sort(Comparator.comparing(Method::toGenericString));
+        return methods;
+    }
+
+    /**
+     * Finds the members declared by the setters of the given interface. The
+     * order of the result is stable, so slot indices assigned at build time
+     * still line up at runtime.
+     */
+    private static Map<String, java.lang.reflect.Type> getDeclaredMembers(
+            Class<?> iface) {
+
+        Map<String, java.lang.reflect.Type> members = new LinkedHashMap<>();
+
+        for (Method method : getSlugMethods(iface)) {
+            String name = method.getName();
+            if (name.startsWith("set") && method.getParameterCount() == 1) {
+                members.put(
+                        MemberNames.register(name.substring(3)),
+                        method.getGenericParameterTypes()[0]);
+            }
+        }
+
+        return members;
+    }
+
+    /**
+     * Computes a signature identifying the classes that this box would
+     * generate for the given interface: a hash of the layout, the generator
+     * version, and the interface's methods.
+     */
+    private String signature(Class<?> iface) {
+        StringBuilder builder = new StringBuilder()
+                .append(GENERATOR_VERSION)
+                .append('/')
+                .append(layout)
+                .append('/')
+                .append(iface.getName());
+
+        for (Method method : getSlugMethods(iface)) {
+            builder.append('/').append(method.toGenericString());
+        }
+
+        try {
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(
+                    builder.toString().getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; ++i) {
+                hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return hex.toString();
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] writeSlugImpl(Class<?> iface, SlugShape shape) {
+
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+
+        String ifaceName = Type.getInternalName(iface);
+        String implName = ifaceName + "$$Impl";
+
+        if (layout == SlugLayout.FIELDS) {
+            // public final class $Impl extends AbstractFieldSlug<${Iface}>
+            //         implements ${Iface} {
+            writer.visit(
+                    Opcodes.V1_8,
+                    Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                    implName,
+                    null,
+                    ABSTRACT_FIELD_SLUG,
+                    new String[] { ifaceName });
+
+            writeFields(writer, shape);
+            writeShapeConstructors(writer, ifaceName, ABSTRACT_FIELD_SLUG);
+            writeFieldAccessors(writer, implName, shape);
+        } else if (hasSlotAccessors()) {
+            // public final class $Impl extends AbstractShapeSlug<${Iface}>
+            //         implements ${Iface} {
+            // (or AbstractBufferSlug, for the buffer layout)
+            writer.visit(
+                    Opcodes.V1_8,
+                    Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                    implName,
+                    null,
+                    baseName(),
+                    new String[] { ifaceName });
+
+            writeShapeConstructors(writer, ifaceName, baseName());
+        } else {
+            // public static final class $Impl extends AbstractSlug<${Iface}>
+            //         implements ${Iface} {
+            // (or AbstractConcurrentSlug, for the concurrent layout)
+            writer.visit(
+                    Opcodes.V1_8,
+                    Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                    implName,
+                    null,
+                    baseName(),
+                    new String[] { ifaceName });
+
+            writeConstructor(writer, ifaceName, baseName());
+        }
+
+        // public static final String SLUG_SIGNATURE = "${signature}";
+        writer.visitField(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+                SIGNATURE_FIELD,
+                "Ljava/lang/String;",
+                null,
+                signature(iface)).visitEnd();
+
+        writeMethods(writer, iface, implName, shape);
+
+        // }
+        writer.visitEnd();
+
+        return writer.toByteArray();
+    }
+
+    private void writeConstructor(
+            ClassWriter writer,
+            String ifaceName,
+            String base) {
+
+        {
+            // private ${IfaceType}$$Impl(Map<String, Object> map) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "<init>",
+                    "(Ljava/util/Map;)V",
+                    null, // TODO: generics stuff?
+                    null);
+
+            visitor.visitCode();
+
+            // super(map, ${IfaceType}.class);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitLdcInsn(Type.getObjectType(ifaceName));
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    base,
+                    "<init>",
+                    "(Ljava/lang/Class;Ljava/util/Map;)V",
+                    false);
+
+            // }
+            visitor.visitInsn(Opcodes.RETURN);
+            visitor.visitMaxs(3, 0);
+            visitor.visitEnd();
+        }
+    }
+
+    private void writeMethods(
+            ClassWriter writer,
+            Class<?> iface,
+            String implName,
+            SlugShape shape) {
+
+        String base = baseName();
+
+        for (Method method : getSlugMethods(iface)) {
+            String name = method.getName();
+
+            if (name.startsWith("get")) {
+                String member = name.substring(3);
+                int index = fieldIndex(shape, member);
+
+                if (hasSlotAccessors() && shape.indexOf(member) >= 0) {
+                    writeSlotGetter(writer, method, implName,
+                            shape.indexOf(member));
+                    continue;
+                }
+
+                if (index >= 0 && method.getReturnType()
+                        .isAssignableFrom(erase(shape.getType(index)))) {
+
+                    writeFieldGetter(writer, method, member, implName, shape,
+                            index);
+                } else {
+                    writeGetter(writer, method, member, base);
+                }
+
+            } else if (name.startsWith("set")) {
+                String member = name.substring(3);
+                int index = fieldIndex(shape, member);
+
+                if (hasSlotAccessors() && shape.indexOf(member) >= 0) {
+                    writeSlotSetter(writer, method, iface, implName,
+                            shape.indexOf(member));
+                    continue;
+                }
+
+                if (index >= 0 && method.getParameterCount() == 1
+                        && method.getParameterTypes()[0]
+                                == erase(shape.getType(index))) {
+
+                    writeFieldSetter(writer, method, member, iface, implName,
+                            shape, index);
+                } else {
+                    writeSetter(writer, method, member, iface, base);
+                }
+
+            } else {
+                throw new IllegalStateException(
+                        "Unimplementable method: " + method);
+            }
+        }
+    }
+
+    /**
+     * Returns the internal name of the base class for the current layout.
+     */
+    private String baseName() {
+        return Type.getInternalName(baseClass());
+    }
+
+    /**
+     * Returns the base class for the current layout.
+     */
+    private Class<?> baseClass() {
+        switch (layout) {
+        case FIELDS:    return AbstractFieldSlug.class;
+        case SHAPE:     return AbstractShapeSlug.class;
+        case CONCURRENT: return AbstractConcurrentSlug.class;
+        case BUFFER:    return AbstractBufferSlug.class;
+        default:        return AbstractSlug.class;
+        }
+    }
+
+    /**
+     * Returns true if generated getters and setters for the current layout
+     * go through the base class's slot accessors.
+     */
+    private boolean hasSlotAccessors() {
+        return (layout == SlugLayout.SHAPE || layout == SlugLayout.BUFFER);
+    }
+
+    /**
+     * Returns true if implementations for the current layout are constructed
+     * from a map alone, rather than from a shape and (optionally) a map.
+     */
+    private boolean hasMapConstructor() {
+        return (layout == SlugLayout.MAP || layout == SlugLayout.CONCURRENT);
+    }
+
+    /**
+     * Returns the slot index of the field backing the given member, or -1 if
+     * the member is not backed by a field in the current layout.
+     */
+    private int fieldIndex(SlugShape shape, String member) {
+        if (layout != SlugLayout.FIELDS) {
+            return -1;
+        }
+        return shape.indexOf(member);
+    }
+
+    private void writeGetter(
+            ClassWriter writer,
+            Method method,
+            String name,
+            String base) {
+
+        if (method.getParameterCount() != 0) {
+            throw new IllegalStateException(
+                    "Cannot implement method with parameters: " + method);
+        }
+
+        if (method.getReturnType() == void.class) {
+            throw new IllegalStateException(
+                    "Cannot implement void method: " + method);
+        }
+
+        // ${ReturnType} get${name}() {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null, // TODO: Generics stuff?
+                null);
+
+        visitor.visitCode();
+
+        // temp0 = super.get("${name}");
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitLdcInsn(name);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKESPECIAL,
+                base,
+                "get",
+                "(Ljava/lang/String;)Ljava/lang/Object;",
+                false);
+
+        if (method.getReturnType().isPrimitive()) {
+            // return (temp0 == null ? 0 : ((Number) temp0).${type}Value());
+            writeUnboxOrDefault(visitor, method.getReturnType());
+        } else {
+            // return (${ReturnType}) temp0;
+            writeCastAndReturn(visitor, method, name, base);
+        }
+
+        // }
+        visitor.visitMaxs(2, 0);
+        visitor.visitEnd();
+    }
+
+    private void writeSetter(
+            ClassWriter writer,
+            Method method,
+            String name,
+            Class<?> iface,
+            String base) {
+
+        checkSetter(method, iface);
+
+        // ${Iface} set${name}(${ParamType} value) {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null, // TODO: Generics stuff?
+                null);
+
+        visitor.visitCode();
+
+        Class<?> param = method.getParameterTypes()[0];
+
+        // temp0 = super.set("${name}", value);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitLdcInsn(name);
+        visitor.visitVarInsn(Type.getType(param).getOpcode(Opcodes.ILOAD), 1);
+        if (param.isPrimitive()) {
+            writeBox(visitor, param);
+        }
+        visitor.visitMethodInsn(
+                Opcodes.INVOKESPECIAL,
+                base,
+                "set",
+                "(Ljava/lang/String;Ljava/lang/Object;)Lio/coronet/slug/Slug;",
+                false);
+
+        if (method.getReturnType() == iface) {
+            // temp1 = (${IFace}) temp0;
+            visitor.visitTypeInsn(
+                    Opcodes.CHECKCAST,
+                    Type.getReturnType(method).getInternalName());
+
+            // return temp1;
+            visitor.visitInsn(Opcodes.ARETURN);
+        } else {
+            // return;
+            visitor.visitInsn(Opcodes.RETURN);
+        }
+
+        // }
+        visitor.visitMaxs(4, 0);
+        visitor.visitEnd();
+    }
+
+    private void checkSetter(Method method, Class<?> iface) {
+        if (method.getParameterCount() != 1) {
+            throw new IllegalStateException(
+                    "Setter must have exactly one parameter: " + method);
+        }
+
+        if (method.getReturnType() != void.class
+                && method.getReturnType() != iface) {
+
+            throw new IllegalStateException(
+                    "Setter must return void or the interface type: "
+                    + method);
+        }
+    }
+
+    private void writeFields(ClassWriter writer, SlugShape shape) {
+        for (int i = 0; i < shape.size(); ++i) {
+            // private ${MemberType} ${name};
+            writer.visitField(
+                    Opcodes.ACC_PRIVATE,
+                    shape.getName(i),
+                    Type.getDescriptor(erase(shape.getType(i))),
+                    null,
+                    null).visitEnd();
+        }
+
+        // Primitive fields can't be null, so track which of them are set
+        // in a bitmask.
+        int bits = presenceBit(shape, shape.size());
+        for (int i = 0; i < bits; i += 64) {
+            // private long $set${i / 64};
+            writer.visitField(
+                    Opcodes.ACC_PRIVATE,
+                    presenceField(i),
+                    "J",
+                    null,
+                    null).visitEnd();
+        }
+    }
+
+    private void writeShapeConstructors(
+            ClassWriter writer,
+            String ifaceName,
+            String base) {
+
+        {
+            // public ${IfaceType}$$Impl(SlugShape shape) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "<init>",
+                    "(L" + SLUG_SHAPE + ";)V",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            // super(${IfaceType}.class, shape);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitLdcInsn(Type.getObjectType(ifaceName));
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    base,
+                    "<init>",
+                    "(Ljava/lang/Class;L" + SLUG_SHAPE + ";)V",
+                    false);
+
+            // }
+            visitor.visitInsn(Opcodes.RETURN);
+            visitor.visitMaxs(3, 0);
+            visitor.visitEnd();
+        }
+
+        {
+            // public ${IfaceType}$$Impl(SlugShape shape, Map map) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "<init>",
+                    "(L" + SLUG_SHAPE + ";Ljava/util/Map;)V",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            // super(${IfaceType}.class, shape, map);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitLdcInsn(Type.getObjectType(ifaceName));
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitVarInsn(Opcodes.ALOAD, 2);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    base,
+                    "<init>",
+                    "(Ljava/lang/Class;L" + SLUG_SHAPE + ";Ljava/util/Map;)V",
+                    false);
+
+            // }
+            visitor.visitInsn(Opcodes.RETURN);
+            visitor.visitMaxs(4, 0);
+            visitor.visitEnd();
+        }
+    }
+
+    private void writeFieldAccessors(
+            ClassWriter writer,
+            String implName,
+            SlugShape shape) {
+
+        int size = shape.size();
+
+        {
+            // protected Object getSlot(int index) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PROTECTED,
+                    "getSlot",
+                    "(I)Ljava/lang/Object;",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            Label missing = new Label();
+            Label[] labels = newLabels(size);
+
+            // switch (index) {
+            if (size > 0) {
+                visitor.visitVarInsn(Opcodes.ILOAD, 1);
+                visitor.visitTableSwitchInsn(0, size - 1, missing, labels);
+            }
+
+            for (int i = 0; i < size; ++i) {
+                visitor.visitLabel(labels[i]);
+
+                Class<?> fieldType = erase(shape.getType(i));
+
+                if (fieldType.isPrimitive()) {
+                    // case ${i}: if (!isSet(${i})) return null;
+                    writeTestPresence(visitor, implName, shape, i);
+                    visitor.visitJumpInsn(Opcodes.IFEQ, missing);
+                }
+
+                // case ${i}: return this.${name};
+                visitor.visitVarInsn(Opcodes.ALOAD, 0);
+                visitor.visitFieldInsn(
+                        Opcodes.GETFIELD,
+                        implName,
+                        shape.getName(i),
+                        Type.getDescriptor(fieldType));
+                if (fieldType.isPrimitive()) {
+                    writeBox(visitor, fieldType);
+                }
+                visitor.visitInsn(Opcodes.ARETURN);
+            }
+
+            // default: return null;
+            visitor.visitLabel(missing);
+            visitor.visitInsn(Opcodes.ACONST_NULL);
+            visitor.visitInsn(Opcodes.ARETURN);
+
+            // }
+            visitor.visitMaxs(4, 0);
+            visitor.visitEnd();
+        }
+
+        {
+            // protected boolean setSlot(int index, Object value) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PROTECTED,
+                    "setSlot",
+                    "(ILjava/lang/Object;)Z",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            Label rejected = new Label();
+            Label[] labels = newLabels(size);
+
+            // switch (index) {
+            if (size > 0) {
+                visitor.visitVarInsn(Opcodes.ILOAD, 1);
+                visitor.visitTableSwitchInsn(0, size - 1, rejected, labels);
+            }
+
+            for (int i = 0; i < size; ++i) {
+                visitor.visitLabel(labels[i]);
+
+                Class<?> fieldType = erase(shape.getType(i));
+                if (fieldType.isPrimitive()) {
+                    writePrimitiveSetField(visitor, implName, shape, i,
+                            rejected);
+                    continue;
+                }
+
+                String fieldName = Type.getInternalName(fieldType);
+
+                // case ${i}:
+                //     if (value != null && !(value instanceof ${Type})) {
+                //         return false;
+                //     }
+                Label store = new Label();
+                visitor.visitVarInsn(Opcodes.ALOAD, 2);
+                visitor.visitJumpInsn(Opcodes.IFNULL, store);
+                visitor.visitVarInsn(Opcodes.ALOAD, 2);
+                visitor.visitTypeInsn(Opcodes.INSTANCEOF, fieldName);
+                visitor.visitJumpInsn(Opcodes.IFEQ, rejected);
+
+                //     this.${name} = (${Type}) value;
+                //     return true;
+                visitor.visitLabel(store);
+                visitor.visitVarInsn(Opcodes.ALOAD, 0);
+                visitor.visitVarInsn(Opcodes.ALOAD, 2);
+                visitor.visitTypeInsn(Opcodes.CHECKCAST, fieldName);
+                visitor.visitFieldInsn(
+                        Opcodes.PUTFIELD,
+                        implName,
+                        shape.getName(i),
+                        Type.getDescriptor(fieldType));
+                visitor.visitInsn(Opcodes.ICONST_1);
+                visitor.visitInsn(Opcodes.IRETURN);
+            }
+
+            // default: return false;
+            visitor.visitLabel(rejected);
+            visitor.visitInsn(Opcodes.ICONST_0);
+            visitor.visitInsn(Opcodes.IRETURN);
+
+            // }
+            visitor.visitMaxs(6, 0);
+            visitor.visitEnd();
+        }
+    }
+
+    private void writePrimitiveSetField(
+            MethodVisitor visitor,
+            String implName,
+            SlugShape shape,
+            int index,
+            Label rejected) {
+
+        Class<?> fieldType = erase(shape.getType(index));
+        String wrapperName = Type.getInternalName(wrapper(fieldType));
+
+        // case ${i}:
+        //     if (value == null) {
+        //         clearSet(${i});
+        //         return true;
+        //     }
+        Label present = new Label();
+        visitor.visitVarInsn(Opcodes.ALOAD, 2);
+        visitor.visitJumpInsn(Opcodes.IFNONNULL, present);
+        writeUpdatePresence(visitor, implName, shape, index, false);
+        visitor.visitInsn(Opcodes.ICONST_1);
+        visitor.visitInsn(Opcodes.IRETURN);
+
+        //     if (!(value instanceof ${Wrapper})) {
+        //         return false;
+        //     }
+        visitor.visitLabel(present);
+        visitor.visitVarInsn(Opcodes.ALOAD, 2);
+        visitor.visitTypeInsn(Opcodes.INSTANCEOF, wrapperName);
+        visitor.visitJumpInsn(Opcodes.IFEQ, rejected);
+
+        //     this.${name} = ((${Wrapper}) value).${type}Value();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ALOAD, 2);
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, wrapperName);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                wrapperName,
+                fieldType.getName() + "Value",
+                "()" + Type.getDescriptor(fieldType),
+                false);
+        visitor.visitFieldInsn(
+                Opcodes.PUTFIELD,
+                implName,
+                shape.getName(index),
+                Type.getDescriptor(fieldType));
+
+        //     markSet(${i});
+        //     return true;
+        writeUpdatePresence(visitor, implName, shape, index, true);
+        visitor.visitInsn(Opcodes.ICONST_1);
+        visitor.visitInsn(Opcodes.IRETURN);
+    }
+
+    private void writeFieldGetter(
+            ClassWriter writer,
+            Method method,
+            String name,
+            String implName,
+            SlugShape shape,
+            int index) {
+
+        if (method.getParameterCount() != 0) {
+            throw new IllegalStateException(
+                    "Cannot implement method with parameters: " + method);
+        }
+
+        // ${ReturnType} get${name}() {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null,
+                null);
+
+        visitor.visitCode();
+
+        Class<?> fieldType = erase(shape.getType(index));
+        Label unset = new Label();
+
+        if (fieldType.isPrimitive()) {
+            // if (isSet(${i})) return this.${name};
+            writeTestPresence(visitor, implName, shape, index);
+            visitor.visitJumpInsn(Opcodes.IFEQ, unset);
+
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(
+                    Opcodes.GETFIELD,
+                    implName,
+                    name,
+                    Type.getDescriptor(fieldType));
+            visitor.visitInsn(
+                    Type.getType(fieldType).getOpcode(Opcodes.IRETURN));
+
+            visitor.visitLabel(unset);
+        } else {
+            // temp0 = this.${name};
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(
+                    Opcodes.GETFIELD,
+                    implName,
+                    name,
+                    Type.getDescriptor(fieldType));
+
+            // if (temp0 != null) return temp0;
+            visitor.visitInsn(Opcodes.DUP);
+            visitor.visitJumpInsn(Opcodes.IFNULL, unset);
+            if (Conversions.isConvertible(method.getGenericReturnType())
+                    && !Conversions.isSlugType(method.getReturnType())) {
+                // A raw list or map fits the field, but may still need
+                // converting.
+                writeCastAndReturn(visitor, method, name, implName);
+            } else {
+                visitor.visitInsn(Opcodes.ARETURN);
+            }
+
+            visitor.visitLabel(unset);
+            visitor.visitInsn(Opcodes.POP);
+        }
+
+        // temp1 = getOverflow("${name}");
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitLdcInsn(name);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                implName,
+                "getOverflow",
+                "(Ljava/lang/String;)Ljava/lang/Object;",
+                false);
+
+        if (method.getReturnType().isPrimitive()) {
+            // return (temp1 == null ? 0 : ((Number) temp1).${type}Value());
+            writeUnboxOrDefault(visitor, method.getReturnType());
+        } else {
+            // return (${ReturnType}) temp1;
+            writeCastAndReturn(visitor, method, name, implName);
+        }
+
+        // }
+        visitor.visitMaxs(4, 0);
+        visitor.visitEnd();
+    }
+
+    private void writeFieldSetter(
+            ClassWriter writer,
+            Method method,
+            String name,
+            Class<?> iface,
+            String implName,
+            SlugShape shape,
+            int index) {
+
+        checkSetter(method, iface);
+
+        // ${Iface} set${name}(${ParamType} value) {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null,
+                null);
+
+        visitor.visitCode();
+
+        Class<?> fieldType = erase(shape.getType(index));
+
+        // beforeSet("${name}");
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitLdcInsn(name);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                implName,
+                "beforeSet",
+                "(Ljava/lang/String;)V",
+                false);
+
+        // this.${name} = value;
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(
+                Type.getType(fieldType).getOpcode(Opcodes.ILOAD),
+                1);
+        visitor.visitFieldInsn(
+                Opcodes.PUTFIELD,
+                implName,
+                name,
+                Type.getDescriptor(fieldType));
+
+        if (fieldType.isPrimitive()) {
+            // markSet(${i});
+            writeUpdatePresence(visitor, implName, shape, index, true);
+        }
+
+        if (method.getReturnType() == iface) {
+            // return this;
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitInsn(Opcodes.ARETURN);
+        } else {
+            // return;
+            visitor.visitInsn(Opcodes.RETURN);
+        }
+
+        // }
+        visitor.visitMaxs(5, 0);
+        visitor.visitEnd();
+    }
+
+    /**
+     * Pushes a non-zero int if the primitive member in the given slot is
+     * set, or zero if it is not.
+     */
+    private static void writeTestPresence(
+            MethodVisitor visitor,
+            String implName,
+            SlugShape shape,
+            int index) {
+
+        int bit = presenceBit(shape, index);
+
+        // (this.$set${n} & ${mask}) != 0
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(
+                Opcodes.GETFIELD,
+                implName,
+                presenceField(bit),
+                "J");
+        visitor.visitLdcInsn(1L << bit);
+        visitor.visitInsn(Opcodes.LAND);
+        visitor.visitInsn(Opcodes.LCONST_0);
+        visitor.visitInsn(Opcodes.LCMP);
+    }
+
+    /**
+     * Sets or clears the presence bit of the primitive member in the given
+     * slot.
+     */
+    private static void writeUpdatePresence(
+            MethodVisitor visitor,
+            String implName,
+            SlugShape shape,
+            int index,
+            boolean set) {
+
+        int bit = presenceBit(shape, index);
+        String field = presenceField(bit);
+
+        // this.$set${n} = this.$set${n} | ${mask};
+        // this.$set${n} = this.$set${n} & ~${mask};
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitFieldInsn(Opcodes.GETFIELD, implName, field, "J");
+        if (set) {
+            visitor.visitLdcInsn(1L << bit);
+            visitor.visitInsn(Opcodes.LOR);
+        } else {
+            visitor.visitLdcInsn(~(1L << bit));
+            visitor.visitInsn(Opcodes.LAND);
+        }
+        visitor.visitFieldInsn(Opcodes.PUTFIELD, implName, field, "J");
+    }
+
+    /**
+     * Returns the presence bit assigned to the (primitive) member in the
+     * given slot: the number of primitive members in earlier slots.
+     */
+    private static int presenceBit(SlugShape shape, int index) {
+        int bit = 0;
+        for (int i = 0; i < index; ++i) {
+            if (erase(shape.getType(i)).isPrimitive()) {
+                bit += 1;
+            }
+        }
+        return bit;
+    }
+
+    private static String presenceField(int bit) {
+        return "$set" + (bit / 64);
+    }
+
+    /**
+     * Boxes the primitive value on top of the stack.
+     */
+    private static void writeBox(MethodVisitor visitor, Class<?> primitive) {
+        Class<?> wrapper = wrapper(primitive);
+
+        // ${Wrapper}.valueOf(value)
+        visitor.visitMethodInsn(
+                Opcodes.INVOKESTATIC,
+                Type.getInternalName(wrapper),
+                "valueOf",
+                Type.getMethodDescriptor(
+                        Type.getType(wrapper),
+                        Type.getType(primitive)),
+                false);
+    }
+
+    /**
+     * Casts the (possibly null) object on top of the stack to the return
+     * type of the given getter and returns it. If the getter returns a slug
+     * interface, or a list or map of them, a raw value that isn't already
+     * of the right type is first converted (and stored back in place of the
+     * raw value) by {@code convertMember}.
+     */
+    private static void writeCastAndReturn(
+            MethodVisitor visitor,
+            Method method,
+            String name,
+            String owner) {
+
+        String returnType = Type.getReturnType(method).getInternalName();
+
+        if (Conversions.isConvertible(method.getGenericReturnType())) {
+            if (Conversions.isSlugType(method.getReturnType())) {
+                Label convert = new Label();
+
+                // if (temp instanceof ${ReturnType}) return temp;
+                visitor.visitInsn(Opcodes.DUP);
+                visitor.visitTypeInsn(Opcodes.INSTANCEOF, returnType);
+                visitor.visitJumpInsn(Opcodes.IFEQ, convert);
+                visitor.visitTypeInsn(Opcodes.CHECKCAST, returnType);
+                visitor.visitInsn(Opcodes.ARETURN);
+
+                visitor.visitLabel(convert);
+            }
+
+            // temp = convertMember("${name}", temp);
+            visitor.visitVarInsn(Opcodes.ASTORE, 1);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitLdcInsn(name);
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKEVIRTUAL,
+                    owner,
+                    "convertMember",
+                    "(Ljava/lang/String;Ljava/lang/Object;)Ljava/lang/Object;",
+                    false);
+        }
+
+        // return (${ReturnType}) temp;
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, returnType);
+        visitor.visitInsn(Opcodes.ARETURN);
+    }
+
+    /**
+     * Unboxes the (possibly null) object on top of the stack and returns it
+     * from the current method, returning the primitive's default value if
+     * it's null. Any {@code Number} is accepted for numeric types.
+     */
+    private static void writeUnboxOrDefault(
+            MethodVisitor visitor,
+            Class<?> primitive) {
+
+        Type type = Type.getType(primitive);
+        Label absent = new Label();
+
+        // if (temp == null) return 0;
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitJumpInsn(Opcodes.IFNULL, absent);
+
+        // return ((Number) temp).${type}Value();
+        String owner;
+        if (primitive == boolean.class) {
+            owner = Type.getInternalName(Boolean.class);
+        } else if (primitive == char.class) {
+            owner = Type.getInternalName(Character.class);
+        } else {
+            owner = Type.getInternalName(Number.class);
+        }
+
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                owner,
+                primitive.getName() + "Value",
+                "()" + type.getDescriptor(),
+                false);
+        visitor.visitInsn(type.getOpcode(Opcodes.IRETURN));
+
+        visitor.visitLabel(absent);
+        visitor.visitInsn(Opcodes.POP);
+
+        switch (type.getSort()) {
+        case Type.LONG:     visitor.visitInsn(Opcodes.LCONST_0); break;
+        case Type.FLOAT:    visitor.visitInsn(Opcodes.FCONST_0); break;
+        case Type.DOUBLE:   visitor.visitInsn(Opcodes.DCONST_0); break;
+        default:            visitor.visitInsn(Opcodes.ICONST_0); break;
+        }
+        visitor.visitInsn(type.getOpcode(Opcodes.IRETURN));
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        Class<?> wrapper = WRAPPERS.get(primitive);
+        if (wrapper == null) {
+            throw new IllegalArgumentException(
+                    "Not a primitive type: " + primitive);
+        }
+        return wrapper;
+    }
+
+    private void writeSlotGetter(
+            ClassWriter writer,
+            Method method,
+            String implName,
+            int index) {
+
+        if (method.getParameterCount() != 0) {
+            throw new IllegalStateException(
+                    "Cannot implement method with parameters: " + method);
+        }
+
+        if (method.getReturnType() == void.class) {
+            throw new IllegalStateException(
+                    "Cannot implement void method: " + method);
+        }
+
+        // ${ReturnType} get${name}() {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null,
+                null);
+
+        visitor.visitCode();
+
+        // temp0 = getSlot(${index});
+        // (or readSlot, which falls back to the overflow map)
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        writePushInt(visitor, index);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                implName,
+                (layout == SlugLayout.BUFFER ? "readSlot" : "getSlot"),
+                "(I)Ljava/lang/Object;",
+                false);
+
+        if (method.getReturnType().isPrimitive()) {
+            // return (temp0 == null ? 0 : ((Number) temp0).${type}Value());
+            writeUnboxOrDefault(visitor, method.getReturnType());
+        } else {
+            // return (${ReturnType}) temp0;
+            writeCastAndReturn(visitor, method, method.getName().substring(3),
+                    implName);
+        }
+
+        // }
+        visitor.visitMaxs(3, 0);
+        visitor.visitEnd();
+    }
+
+    private void writeSlotSetter(
+            ClassWriter writer,
+            Method method,
+            Class<?> iface,
+            String implName,
+            int index) {
+
+        checkSetter(method, iface);
+
+        // ${Iface} set${name}(${ParamType} value) {
         MethodVisitor visitor = writer.visitMethod(
                 Opcodes.ACC_PUBLIC,
                 method.getName(),
                 Type.getMethodDescriptor(method),
-                null, // TODO: Generics stuff?
+                null,
                 null);
 
         visitor.visitCode();
 
-        // temp0 = super.set("${name}", value);
+        Class<?> param = method.getParameterTypes()[0];
+
+        // putSlot(${index}, value);
         visitor.visitVarInsn(Opcodes.ALOAD, 0);
-        visitor.visitLdcInsn(name);
-        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        writePushInt(visitor, index);
+        visitor.visitVarInsn(Type.getType(param).getOpcode(Opcodes.ILOAD), 1);
+        if (param.isPrimitive()) {
+            writeBox(visitor, param);
+        }
         visitor.visitMethodInsn(
-                Opcodes.INVOKESPECIAL,
-                ABSTRACT_SLUG,
-                "set",
-                "(Ljava/lang/String;Ljava/lang/Object;)Lio/coronet/slug/Slug;",
+                Opcodes.INVOKEVIRTUAL,
+                implName,
+                "putSlot",
+                "(ILjava/lang/Object;)V",
                 false);
 
         if (method.getReturnType() == iface) {
-            // temp1 = (${IFace}) temp0;
-            visitor.visitTypeInsn(
-                    Opcodes.CHECKCAST,
-                    Type.getReturnType(method).getInternalName());
-
-            // return temp1;
+            // return this;
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
             visitor.visitInsn(Opcodes.ARETURN);
         } else {
             // return;
@@ -375,14 +2033,58 @@ public final class SlugBox {
         }
 
         // }
-        visitor.visitMaxs(3, 0);
+        visitor.visitMaxs(4, 0);
         visitor.visitEnd();
     }
 
-    private Class<?> createFactory(DirectLoader loader, Class<?> impl) {
+    private static void writePushInt(MethodVisitor visitor, int value) {
+        if (value >= -1 && value <= 5) {
+            visitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            visitor.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            visitor.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            visitor.visitLdcInsn(value);
+        }
+    }
+
+    private static Label[] newLabels(int count) {
+        Label[] labels = new Label[count];
+        for (int i = 0; i < count; ++i) {
+            labels[i] = new Label();
+        }
+        return labels;
+    }
+
+    /**
+     * Returns the erasure of the given generic type.
+     */
+    private static Class<?> erase(java.lang.reflect.Type type) {
+        if (type instanceof Class<?>) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return erase(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component =
+                    erase(((GenericArrayType) type).getGenericComponentType());
+            return java.lang.reflect.Array.newInstance(component, 0)
+                    .getClass();
+        }
+        if (type instanceof TypeVariable<?>) {
+            return erase(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private byte[] writeFactory(String implName) {
         ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 
-        String implName = Type.getInternalName(impl);
         String factoryName = implName + "$$Factory";
 
         // public static final class $Factory implements SlugFactory<${Iface}> {
@@ -394,6 +2096,19 @@ public final class SlugBox {
                 OBJECT,
                 new String[] { SLUG_FACTORY });
 
+        if (hasMapConstructor()) {
+            writeMapFactory(writer, implName);
+        } else {
+            writeShapeFactory(writer, implName, factoryName);
+        }
+
+        // }
+        writer.visitEnd();
+
+        return writer.toByteArray();
+    }
+
+    private void writeMapFactory(ClassWriter writer, String implName) {
         {
             // public $Factory() {
             MethodVisitor visitor = writer.visitMethod(
@@ -448,11 +2163,448 @@ public final class SlugBox {
             visitor.visitMaxs(3, 0);
             visitor.visitEnd();
         }
+    }
 
-        // }
-        writer.visitEnd();
+    private void writeShapeFactory(
+            ClassWriter writer,
+            String implName,
+            String factoryName) {
+
+        String shapeDesc = "L" + SLUG_SHAPE + ";";
+
+        // private final SlugShape shape;
+        writer.visitField(
+                Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                "shape",
+                shapeDesc,
+                null,
+                null).visitEnd();
+
+        {
+            // public $Factory(SlugShape shape) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "<init>",
+                    "(" + shapeDesc + ")V",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            // super();
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    OBJECT,
+                    "<init>",
+                    "()V",
+                    false);
+
+            // this.shape = shape;
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitFieldInsn(
+                    Opcodes.PUTFIELD,
+                    factoryName,
+                    "shape",
+                    shapeDesc);
+
+            // }
+            visitor.visitInsn(Opcodes.RETURN);
+            visitor.visitMaxs(2, 0);
+            visitor.visitEnd();
+        }
+
+        {
+            // public Slug create(Map<String, Object> map) {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "create",
+                    "(Ljava/util/Map;)Lio/coronet/slug/Slug;",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            // temp0 = new ${Impl}(this.shape, map);
+            visitor.visitTypeInsn(Opcodes.NEW, implName);
+            visitor.visitInsn(Opcodes.DUP);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(
+                    Opcodes.GETFIELD,
+                    factoryName,
+                    "shape",
+                    shapeDesc);
+            visitor.visitVarInsn(Opcodes.ALOAD, 1);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    implName,
+                    "<init>",
+                    "(" + shapeDesc + "Ljava/util/Map;)V",
+                    false);
+
+            // return temp0;
+            // }
+            visitor.visitInsn(Opcodes.ARETURN);
+            visitor.visitMaxs(4, 0);
+            visitor.visitEnd();
+        }
+
+        {
+            // public Slug create() {
+            MethodVisitor visitor = writer.visitMethod(
+                    Opcodes.ACC_PUBLIC,
+                    "create",
+                    "()Lio/coronet/slug/Slug;",
+                    null,
+                    null);
+
+            visitor.visitCode();
+
+            // temp0 = new ${Impl}(this.shape);
+            visitor.visitTypeInsn(Opcodes.NEW, implName);
+            visitor.visitInsn(Opcodes.DUP);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(
+                    Opcodes.GETFIELD,
+                    factoryName,
+                    "shape",
+                    shapeDesc);
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKESPECIAL,
+                    implName,
+                    "<init>",
+                    "(" + shapeDesc + ")V",
+                    false);
+
+            // return temp0;
+            // }
+            visitor.visitInsn(Opcodes.ARETURN);
+            visitor.visitMaxs(3, 0);
+            visitor.visitEnd();
+        }
+    }
+
+    /**
+     * Reflective access to {@code Lookup.defineHiddenClass}, which only
+     * exists on Java 15 and later.
+     */
+    private static final class HiddenClasses {
+
+        private static final Method PRIVATE_LOOKUP_IN;
+        private static final Method DEFINE_CLASS;
+        private static final Method DEFINE_HIDDEN_CLASS;
+        private static final Object NO_OPTIONS;
+
+        static {
+            Method privateLookupIn = null;
+            Method defineClass = null;
+            Method defineHiddenClass = null;
+            Object options = null;
+
+            try {
+
+                privateLookupIn = MethodHandles.class.getMethod(
+                        "privateLookupIn",
+                        Class.class,
+                        MethodHandles.Lookup.class);
+
+                defineClass = MethodHandles.Lookup.class.getMethod(
+                        "defineClass",
+                        byte[].class);
+
+                Class<?> option = Class.forName(
+                        "java.lang.invoke.MethodHandles$Lookup$ClassOption");
+                options = Array.newInstance(option, 0);
+
+                defineHiddenClass = MethodHandles.Lookup.class.getMethod(
+                        "defineHiddenClass",
+                        byte[].class,
+                        boolean.class,
+                        options.getClass());
+
+            } catch (ReflectiveOperationException e) {
+                defineHiddenClass = null;
+            }
+
+            PRIVATE_LOOKUP_IN = privateLookupIn;
+            DEFINE_CLASS = defineClass;
+            DEFINE_HIDDEN_CLASS = defineHiddenClass;
+            NO_OPTIONS = options;
+        }
+
+        public static boolean isSupported() {
+            return (DEFINE_HIDDEN_CLASS != null);
+        }
+
+        /**
+         * Defines a hidden class in the same package as the given host
+         * class. Unlike an ordinary class, it can be unloaded as soon as
+         * it's unreachable rather than living as long as the host's class
+         * loader.
+         *
+         * @param host the class whose package to define the class in
+         * @param anchor a lookup anchor for the host, as generated by
+         *             {@link SlugBox#writeLookupAnchor(Class)}
+         * @param data the class file to define
+         * @return a full-privilege lookup on the new class
+         */
+        public static MethodHandles.Lookup define(
+                Class<?> host,
+                byte[] anchor,
+                byte[] data) {
+
+            try {
+
+                MethodHandles.Lookup lookup = (MethodHandles.Lookup)
+                        PRIVATE_LOOKUP_IN.invoke(
+                                null,
+                                findAnchor(host, anchor),
+                                MethodHandles.lookup());
+
+                lookup = (MethodHandles.Lookup) lookup.findStatic(
+                        lookup.lookupClass(),
+                        "lookup",
+                        MethodType.methodType(MethodHandles.Lookup.class))
+                        .invoke();
+
+                return (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(
+                        lookup,
+                        data,
+                        true,
+                        NO_OPTIONS);
+
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(
+                        "Error defining hidden class for " + host,
+                        e.getCause());
+            } catch (Throwable e) {
+                throw new IllegalStateException(
+                        "Error defining hidden class for " + host,
+                        e);
+            }
+        }
+
+        /**
+         * Finds the lookup anchor for the given host class, defining it if
+         * this is the first time it's needed. The anchor is shared by every
+         * box, so another one may win the race to define it.
+         */
+        private static Class<?> findAnchor(Class<?> host, byte[] anchor)
+                throws ReflectiveOperationException {
+
+            String name = host.getName() + "$$Lookup";
+            ClassLoader loader = host.getClassLoader();
+
+            try {
+                return Class.forName(name, false, loader);
+            } catch (ClassNotFoundException e) {
+                // Not defined yet.
+            }
+
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup)
+                    PRIVATE_LOOKUP_IN.invoke(
+                            null,
+                            host,
+                            MethodHandles.lookup());
+
+            try {
+                return (Class<?>) DEFINE_CLASS.invoke(lookup, anchor);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof LinkageError) {
+                    return Class.forName(name, false, loader);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * A factory for slug implementations defined as hidden classes.
+     */
+    private static final class HiddenFactory<T extends Slug<?>>
+            implements SlugFactory<T> {
+
+        private final MethodHandle wrap;
+        private final MethodHandle create;
+
+        public HiddenFactory(MethodHandle wrap, MethodHandle create) {
+            this.wrap = wrap.asType(
+                    MethodType.methodType(Slug.class, Map.class));
+            this.create = (create == null ? null : create.asType(
+                    MethodType.methodType(Slug.class)));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T create(Map<String, Object> map) {
+            try {
+                return (T) (Slug<?>) wrap.invokeExact(map);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T create() {
+            if (create == null) {
+                return create(new HashMap<>());
+            }
+
+            try {
+                return (T) (Slug<?>) create.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * A factory that turns on change tracking for the slugs it creates.
+     */
+    private static final class TrackingFactory<T extends Slug<?>>
+            implements SlugFactory<T> {
+
+        private final SlugFactory<T> factory;
+
+        public TrackingFactory(SlugFactory<T> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public T create(Map<String, Object> map) {
+            return track(factory.create(map));
+        }
+
+        @Override
+        public T create() {
+            return track(factory.create());
+        }
+
+        private T track(T slug) {
+            ((ChangeTracking) slug).trackChanges();
+            return slug;
+        }
+    }
+
+    /**
+     * The factory for a slug type that's on its first tier: it creates
+     * proxies until it's created {@code threshold} of them, then has the
+     * box generate a real implementation for the type and delegates to
+     * that from then on. It holds the box weakly, since it's cached against
+     * the slug interface; if the box is gone, it just keeps creating
+     * proxies.
+     */
+    private static final class TieredFactory<T extends Slug<?>>
+            implements SlugFactory<T> {
+
+        private final WeakReference<SlugBox> box;
+        private final Class<T> type;
+        private final SlugFactory<T> proxies;
+        private final int threshold;
+        private final AtomicInteger count;
+        private volatile SlugFactory<T> generated;
+
+        public TieredFactory(
+                SlugBox box,
+                Class<T> type,
+                SlugFactory<T> proxies,
+                int threshold) {
+
+            this.box = new WeakReference<>(box);
+            this.type = type;
+            this.proxies = proxies;
+            this.threshold = threshold;
+            this.count = new AtomicInteger();
+        }
+
+        @Override
+        public T create(Map<String, Object> map) {
+            return factory().create(map);
+        }
+
+        @Override
+        public T create() {
+            return factory().create();
+        }
+
+        private SlugFactory<T> factory() {
+            SlugFactory<T> factory = generated;
+            if (factory != null) {
+                return factory;
+            }
+            if (count.incrementAndGet() < threshold) {
+                return proxies;
+            }
 
-        return loader.loadClass(writer.toByteArray());
+            SlugBox b = box.get();
+            if (b == null) {
+                return proxies;
+            }
+
+            factory = b.cache.generated(type).factory;
+            generated = factory;
+            return factory;
+        }
+    }
+
+    /**
+     * The running totals behind {@link SlugBox#stats()}. Cache hits, if
+     * they're counted at all, are counted on every lookup, so they're
+     * striped to stay cheap under contention.
+     */
+    private static final class Counters {
+
+        private final LongAdder[] types;
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public Counters() {
+            types = new LongAdder[SlugBoxListener.Source.values().length];
+            for (int i = 0; i < types.length; ++i) {
+                types[i] = new LongAdder();
+            }
+        }
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void created(
+                SlugBoxListener.Source source,
+                long time,
+                int size) {
+
+            types[source.ordinal()].increment();
+            nanos.add(time);
+            bytes.add(size);
+            misses.increment();
+        }
+
+        public SlugBoxStats snapshot() {
+            EnumMap<SlugBoxListener.Source, Long> counts =
+                    new EnumMap<>(SlugBoxListener.Source.class);
+
+            for (SlugBoxListener.Source source
+                    : SlugBoxListener.Source.values()) {
+
+                counts.put(source, types[source.ordinal()].sum());
+            }
+
+            return new SlugBoxStats(
+                    counts,
+                    nanos.sum(),
+                    bytes.sum(),
+                    hits.sum(),
+                    misses.sum());
+        }
     }
 
     private static final class DirectLoader extends ClassLoader {
@@ -469,35 +2621,301 @@ public final class SlugBox {
     private static final class CacheEntry<T extends Slug<?>> {
 
         public final SlugFactory<T> factory;
+        // Null for an interim entry whose factory creates proxies.
+        public final Class<?> implType;
         public final Map<String, java.lang.reflect.Type> members;
+        public final SlugAccessor<T> accessor;
 
         public CacheEntry(
+                Class<T> type,
                 SlugFactory<T> factory,
+                Class<?> implType,
                 Map<String, java.lang.reflect.Type> members) {
 
             this.factory = factory;
+            this.implType = implType;
             this.members = members;
+
+            // Only slot-based implementations number their slots by member.
+            this.accessor = new SlugAccessor<>(
+                    type,
+                    (implType != null
+                            && AbstractSlotSlug.class.isAssignableFrom(implType)
+                            ? implType
+                            : null),
+                    members);
         }
     }
 
-    private static final class SlugCache {
+    /**
+     * Per-interface cache of generated factories. Lookups after the first
+     * are a {@code ClassValue} read plus a volatile read of the holder, with
+     * no locking. The first lookup for an interface generates its classes
+     * exactly once, while holding a lock that's private to the holder (not
+     * the interface's {@code Class} object, which other code may lock).
+     * <p>
+     * Cached entries hang off the interface's {@code Class}, not the box, so
+     * they don't keep the interface (or its class loader) reachable.
+     */
+    private static final class SlugCache
+            extends ClassValue<SlugCache.Holder> {
+
+        private final SlugBox box;
+
+        public SlugCache(SlugBox box) {
+            this.box = box;
+        }
+
+        @Override
+        protected Holder computeValue(Class<?> type) {
+            // Cheap; if two threads race here, ClassValue keeps only one.
+            return new Holder();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T extends Slug<?>> CacheEntry<T> entry(Class<T> key) {
+            Holder holder = get(key);
+
+            CacheEntry<?> entry = holder.entry;
+            if (entry == null) {
+                synchronized (holder) {
+                    entry = holder.entry;
+                    if (entry == null) {
+                        entry = box.createEntry(key, true);
+                        holder.entry = entry;
+                        return (CacheEntry<T>) entry;
+                    }
+                }
+            }
 
-        private final Map<Class<?>, CacheEntry<?>> cache;
+            if (box.countHits) {
+                box.counters.hit();
+            }
 
-        public SlugCache() {
-            cache = new ConcurrentHashMap<>();
+            return (CacheEntry<T>) entry;
         }
 
+        /**
+         * Returns the entry for the given type, replacing an interim
+         * (tiered) entry with one for a generated implementation first.
+         */
         @SuppressWarnings("unchecked")
-        public <T extends Slug<?>> CacheEntry<T> get(Class<T> key) {
-            return (CacheEntry<T>) cache.get(key);
+        public <T extends Slug<?>> CacheEntry<T> generated(Class<T> key) {
+            CacheEntry<?> entry = entry(key);
+            if (entry.implType != null) {
+                return (CacheEntry<T>) entry;
+            }
+
+            Holder holder = get(key);
+            synchronized (holder) {
+                entry = holder.entry;
+                if (entry.implType == null) {
+                    entry = box.createEntry(key, false);
+                    holder.entry = entry;
+                }
+            }
+
+            return (CacheEntry<T>) entry;
+        }
+
+        private static final class Holder {
+            volatile CacheEntry<?> entry;
+        }
+    }
+
+    /**
+     * A fluent builder for {@code SlugBox}es.
+     */
+    public static final class Builder {
+
+        private SlugLayout layout;
+        private boolean pregenerated;
+        private boolean hidden;
+        private boolean tracking;
+        private int tiering;
+        private Path classCache;
+        private SlugBoxListener listener;
+        private SlugInterner interner;
+        private boolean cacheStats;
+
+        /**
+         * Creates a new, default builder.
+         *
+         * @see SlugBox#builder()
+         */
+        public Builder() {
+            layout = SlugLayout.MAP;
+            pregenerated = true;
+        }
+
+        /**
+         * Configures the storage layout of the slug implementations that the
+         * box will generate. Defaults to {@link SlugLayout#MAP}.
+         *
+         * @param l the layout to use
+         * @return this builder
+         */
+        public Builder withLayout(SlugLayout l) {
+            if (l == null) {
+                throw new NullPointerException("l");
+            }
+            layout = l;
+            return this;
         }
 
-        public <T extends Slug<?>> void put(
-                Class<T> key,
-                CacheEntry<T> value) {
+        /**
+         * Configures whether the box looks for implementation classes that
+         * were generated at build time (see
+         * {@link SlugBox#generateClasses(Class)}) before generating them
+         * itself. Pre-generated classes are only used if they match the
+         * box's layout and the current version of the interface. Defaults to
+         * true.
+         *
+         * @param p true to use pre-generated classes when available
+         * @return this builder
+         */
+        public Builder withPregenerated(boolean p) {
+            pregenerated = p;
+            return this;
+        }
+
+        /**
+         * Configures whether the box defines slug implementations as hidden
+         * classes in their interfaces' packages, rather than in a new class
+         * loader per interface. Hidden classes can be unloaded as soon as
+         * they're unreachable, and since the box only caches them against
+         * the interface's {@code Class}, they go away along with the class
+         * loader that defined the interface. Use this when slug interfaces
+         * come from class loaders that are discarded, as with hot-swapped
+         * plugins.
+         * <p>
+         * Requires Java 15 or later; on older runtimes this setting is
+         * ignored. Interfaces in named modules must be open to this library.
+         * Defaults to false.
+         *
+         * @param h true to define implementations as hidden classes
+         * @return this builder
+         */
+        public Builder withHiddenClasses(boolean h) {
+            hidden = h;
+            return this;
+        }
+
+        /**
+         * Configures whether slugs created by the box record which members
+         * are set or removed, so that callers can find out what changed (see
+         * {@link Slug#changes()}) and ship or persist just that. Tracking
+         * costs a set insertion on every write, so it defaults to false.
+         *
+         * @param t true to track changes to slugs
+         * @return this builder
+         */
+        public Builder withChangeTracking(boolean t) {
+            tracking = t;
+            return this;
+        }
+
+        /**
+         * Configures the box to start each slug type off with a cheap
+         * reflective implementation (a {@code java.lang.reflect.Proxy} over
+         * a map), and only generate a real implementation once
+         * {@code threshold} slugs of the type have been created. This cuts
+         * the startup cost of short-lived processes that touch many slug
+         * types a few times each, without slowing down the types that are
+         * used heavily. Slugs created before a type is promoted keep their
+         * proxy implementation.
+         * <p>
+         * Interfaces with default methods, interfaces with pre-generated
+         * implementations, and boxes using the
+         * {@link SlugLayout#CONCURRENT} or {@link SlugLayout#BUFFER} layouts
+         * never use proxies. Defaults to 0, which turns tiering off.
+         *
+         * @param threshold the number of slugs of a type to create before
+         *             generating its implementation, or 0 to always generate
+         * @return this builder
+         */
+        public Builder withTiering(int threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException(
+                        "threshold must not be negative: " + threshold);
+            }
+            tiering = threshold;
+            return this;
+        }
+
+        /**
+         * Configures a directory in which the box stores the classes it
+         * generates, so that later processes can define them from the
+         * stored bytes instead of generating them again. Stored classes are
+         * only used if they were generated for the box's layout, the current
+         * version of the interface, and the current version of this library;
+         * otherwise they're regenerated and replaced. The directory can be
+         * shared by processes running at the same time.
+         * <p>
+         * The directory is laid out like a classpath directory. Putting it
+         * on the classpath of later runs lets them load the classes as if
+         * they were pre-generated (see {@link #withPregenerated(boolean)}),
+         * which also makes them eligible for class data sharing archives.
+         * Defaults to null, which turns caching off.
+         *
+         * @param d the directory to cache generated classes in, or null
+         * @return this builder
+         */
+        public Builder withClassCache(Path d) {
+            classCache = d;
+            return this;
+        }
+
+        /**
+         * Configures a listener to be told each time the box sets up a slug
+         * type, with how long it took and how much bytecode it defined.
+         * Defaults to null, for no listener.
+         *
+         * @param l the listener, or null
+         * @return this builder
+         * @see SlugBox#stats()
+         */
+        public Builder withListener(SlugBoxListener l) {
+            listener = l;
+            return this;
+        }
+
+        /**
+         * Configures whether the box counts hits in its cache of
+         * implementations, as reported by {@link SlugBox#stats()}. Counting
+         * them updates a shared counter on every lookup, so it's off by
+         * default, and hits are reported as zero; misses are always counted.
+         *
+         * @param enabled true to count cache hits
+         * @return this builder
+         */
+        public Builder withCacheStats(boolean enabled) {
+            cacheStats = enabled;
+            return this;
+        }
+
+        /**
+         * Configures an interner that {@link SlugBox#makeImmutable(Slug)}
+         * uses to canonicalize the slugs it makes immutable. Worthwhile when
+         * a process holds many equal immutable slugs. Defaults to null, for
+         * no interning.
+         *
+         * @param i the interner, or null
+         * @return this builder
+         */
+        public Builder withInterner(SlugInterner i) {
+            interner = i;
+            return this;
+        }
 
-            cache.put(key, value);
+        /**
+         * Builds a new {@code SlugBox} with the current configuration of this
+         * builder.
+         *
+         * @return a new {@code SlugBox}
+         */
+        public SlugBox build() {
+            return new SlugBox(this);
         }
     }
 }
@@ -0,0 +1,59 @@
+package io.coronet.slug;
+
+/**
+ * Receives a callback each time a {@code SlugBox} sets up a slug type for
+ * the first time: the point at which it generates (or loads) the type's
+ * implementation. Use one to feed code generation costs into a metrics or
+ * event system, such as JFR.
+ *
+ * @see SlugBox.Builder#withListener(SlugBoxListener)
+ * @see SlugBox#stats()
+ */
+public interface SlugBoxListener {
+
+    /**
+     * Where the implementation of a slug type came from.
+     */
+    enum Source {
+
+        /**
+         * Generated by the box at runtime.
+         */
+        GENERATED,
+
+        /**
+         * Generated at build time and loaded from the classpath.
+         *
+         * @see SlugBox.Builder#withPregenerated(boolean)
+         */
+        PREGENERATED,
+
+        /**
+         * Generated by an earlier process and defined from the class cache.
+         *
+         * @see SlugBox.Builder#withClassCache(java.nio.file.Path)
+         */
+        CACHED,
+
+        /**
+         * Not generated yet: the type starts out implemented by a proxy.
+         *
+         * @see SlugBox.Builder#withTiering(int)
+         */
+        PROXY
+    }
+
+    /**
+     * Called on the thread that first used the given slug type, once its
+     * implementation is ready. A type that's promoted from a proxy to a
+     * generated implementation is reported twice. Exceptions thrown by this
+     * method are ignored.
+     *
+     * @param type the slug type
+     * @param source where the implementation came from
+     * @param nanos the time in nanoseconds it took to set up the type
+     * @param bytes the number of bytes of class files the box defined for
+     *             the type
+     */
+    void entryCreated(Class<?> type, Source source, long nanos, int bytes);
+}
@@ -0,0 +1,110 @@
+package io.coronet.slug;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A snapshot of what a {@code SlugBox} has done so far: how many slug types
+ * it has set up (and how), how long that took, how much bytecode it defined,
+ * and how its cache of implementations has performed.
+ *
+ * @see SlugBox#stats()
+ */
+public final class SlugBoxStats {
+
+    private final Map<SlugBoxListener.Source, Long> types;
+    private final long nanos;
+    private final long bytes;
+    private final long hits;
+    private final long misses;
+
+    SlugBoxStats(
+            EnumMap<SlugBoxListener.Source, Long> types,
+            long nanos,
+            long bytes,
+            long hits,
+            long misses) {
+
+        this.types = Collections.unmodifiableMap(new EnumMap<>(types));
+        this.nanos = nanos;
+        this.bytes = bytes;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Returns the number of slug types set up from the given source.
+     *
+     * @param source the source of the implementations
+     * @return the number of types
+     */
+    public long getTypes(SlugBoxListener.Source source) {
+        Long count = types.get(source);
+        return (count == null ? 0 : count);
+    }
+
+    /**
+     * Returns the total number of slug types set up by the box, counting a
+     * type promoted from a proxy to a generated implementation twice.
+     *
+     * @return the total number of types
+     */
+    public long getTotalTypes() {
+        long total = 0;
+        for (Long count : types.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total time spent setting up slug types.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getSetupNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the total size of the class files the box has defined, which
+     * is a rough proxy for the metaspace they use.
+     *
+     * @return the total size in bytes
+     */
+    public long getBytecodeBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of times a slug type's implementation was looked
+     * up and already set up. Always zero unless the box was built with
+     * {@link SlugBox.Builder#withCacheStats(boolean) cache stats} turned on.
+     *
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a slug type's implementation was looked
+     * up and had to be set up first.
+     *
+     * @return the number of cache misses
+     */
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        return "SlugBoxStats{types=" + types
+                + ", setupNanos=" + nanos
+                + ", bytecodeBytes=" + bytes
+                + ", cacheHits=" + hits
+                + ", cacheMisses=" + misses
+                + "}";
+    }
+}
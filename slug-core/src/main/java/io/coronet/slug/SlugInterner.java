@@ -0,0 +1,197 @@
+package io.coronet.slug;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalizes immutable slugs, the way {@code String.intern()} does for
+ * strings: interning a slug returns the one shared instance of its type with
+ * equal members, so a process that holds many identical immutable slugs only
+ * keeps one copy of each. Strings and immutable slugs nested in an interned
+ * slug are interned too (other values, including lists and maps, are left
+ * as they are).
+ * <p>
+ * The interner only holds its slugs weakly, so a canonical instance is
+ * dropped once nothing else refers to it. An interner is thread-safe, and
+ * can be shared by any number of boxes.
+ *
+ * @see SlugBox.Builder#withInterner(SlugInterner)
+ */
+public final class SlugInterner {
+
+    private static final int SEGMENTS = 16;
+
+    private final ClassValue<Table> slugs = new ClassValue<Table>() {
+        @Override
+        protected Table computeValue(Class<?> type) {
+            return new Table();
+        }
+    };
+
+    private final Table strings = new Table();
+
+    /**
+     * Creates a new, empty interner.
+     */
+    public SlugInterner() {
+    }
+
+    /**
+     * Returns the canonical instance of the given immutable slug: either a
+     * previously interned slug of the same type with equal members, or
+     * (if there isn't one) the given slug, or an equal copy of it whose
+     * nested strings and slugs are canonical.
+     *
+     * @param slug the slug to intern
+     * @return the canonical instance of the slug
+     * @throws IllegalArgumentException if {@code slug} isn't immutable
+     */
+    public <T extends Slug<?>> T intern(T slug) {
+        if (slug == null) {
+            throw new NullPointerException("slug");
+        }
+        if (!slug.isImmutable()) {
+            throw new IllegalArgumentException(
+                    "Only immutable slugs can be interned");
+        }
+
+        Table table = slugs.get(slug.type());
+
+        Object found = table.get(slug);
+        if (found == null) {
+            found = table.putIfAbsent(internMembers(slug));
+        }
+
+        @SuppressWarnings("unchecked")
+        T result = (T) found;
+        return result;
+    }
+
+    /**
+     * Makes the given slug immutable and interns it.
+     *
+     * @param slug the slug to make immutable and intern
+     * @return the canonical instance of the slug
+     * @see #intern(Slug)
+     */
+    public <T extends Slug<?>> T makeImmutable(T slug) {
+        if (slug == null) {
+            throw new NullPointerException("slug");
+        }
+        slug.makeImmutable();
+        return intern(slug);
+    }
+
+    /**
+     * Returns the canonical instance of the given string.
+     *
+     * @param string the string to intern
+     * @return the canonical instance of the string
+     */
+    public String intern(String string) {
+        if (string == null) {
+            throw new NullPointerException("string");
+        }
+
+        Object found = strings.get(string);
+        if (found == null) {
+            found = strings.putIfAbsent(string);
+        }
+        return (String) found;
+    }
+
+    /**
+     * Returns the given slug, or if any of its members are strings or
+     * immutable slugs that aren't canonical, an equal slug that uses the
+     * canonical instances instead.
+     */
+    private <T extends Slug<?>> T internMembers(T slug) {
+        List<Map.Entry<String, Object>> replacements = null;
+
+        for (Map.Entry<String, Object> entry : slug.entrySet()) {
+            Object value = entry.getValue();
+
+            Object canonical = value;
+            if (value instanceof String) {
+                canonical = intern((String) value);
+            } else if (value instanceof Slug<?>
+                    && ((Slug<?>) value).isImmutable()) {
+                canonical = intern((Slug<?>) value);
+            }
+
+            if (canonical != value) {
+                if (replacements == null) {
+                    replacements = new ArrayList<>();
+                }
+                replacements.add(new AbstractMap.SimpleImmutableEntry<>(
+                        entry.getKey(),
+                        canonical));
+            }
+        }
+
+        if (replacements == null) {
+            return slug;
+        }
+
+        Slug<?> result = slug;
+        for (Map.Entry<String, Object> entry : replacements) {
+            result = (Slug<?>) result.with(entry.getKey(), entry.getValue());
+        }
+
+        @SuppressWarnings("unchecked")
+        T t = (T) result;
+        return t;
+    }
+
+    /**
+     * A weak set of canonical instances, split into independently locked
+     * segments so threads interning different values rarely contend.
+     */
+    private static final class Table {
+
+        private final Segment[] segments;
+
+        public Table() {
+            segments = new Segment[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; ++i) {
+                segments[i] = new Segment();
+            }
+        }
+
+        public Object get(Object key) {
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                WeakReference<Object> ref = segment.map.get(key);
+                return (ref == null ? null : ref.get());
+            }
+        }
+
+        public Object putIfAbsent(Object key) {
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                WeakReference<Object> ref = segment.map.get(key);
+                Object found = (ref == null ? null : ref.get());
+                if (found != null) {
+                    return found;
+                }
+                segment.map.put(key, new WeakReference<>(key));
+                return key;
+            }
+        }
+
+        private Segment segmentFor(Object key) {
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            return segments[h & (SEGMENTS - 1)];
+        }
+    }
+
+    private static final class Segment {
+        final WeakHashMap<Object, WeakReference<Object>> map =
+                new WeakHashMap<>();
+    }
+}
@@ -0,0 +1,70 @@
+package io.coronet.slug;
+
+/**
+ * Strategies for storing the members of the slug implementations that a
+ * {@link SlugBox} generates.
+ *
+ * @see SlugBox.Builder#withLayout(SlugLayout)
+ */
+public enum SlugLayout {
+
+    /**
+     * All members are stored in a {@code Map<String, Object>}. Generated
+     * getters and setters are thin wrappers around {@link Slug#get(String)}
+     * and {@link Slug#set(String, Object)}. This is the default, and the
+     * only layout for which {@link SlugBox#wrap(Class, java.util.Map)} and
+     * {@link SlugBox#cast(Class, Slug)} return live views of the original
+     * map rather than copies.
+     *
+     * @see AbstractSlug
+     */
+    MAP,
+
+    /**
+     * Each member declared by the slug interface is stored in an instance
+     * field of the generated implementation, so generated getters and
+     * setters are plain field accesses. Undeclared members are stored in an
+     * overflow map that's only allocated when first needed.
+     *
+     * @see AbstractFieldSlug
+     */
+    FIELDS,
+
+    /**
+     * Members are stored in a compact {@code Object[]} whose slots are
+     * assigned by a {@link SlugShape} shared by all instances of the type,
+     * so instances don't repeat member names or per-entry objects. Generated
+     * getters and setters index straight into the array. Undeclared members
+     * transition the slug to a (cached, shared) child shape with an extra
+     * slot.
+     *
+     * @see AbstractShapeSlug
+     */
+    SHAPE,
+
+    /**
+     * Members are stored in a {@code ConcurrentHashMap}, so slugs can be
+     * read and updated by many threads at once without external locking.
+     * Generated getters and setters are thin wrappers around
+     * {@link Slug#get(String)} and {@link Slug#set(String, Object)}, and
+     * slugs implement {@link ConcurrentSlug} for atomic updates of single
+     * members. Like the other non-map layouts,
+     * {@link SlugBox#wrap(Class, java.util.Map)} copies the map it's given.
+     *
+     * @see AbstractConcurrentSlug
+     */
+    CONCURRENT,
+
+    /**
+     * Declared members of boolean, numeric, and string types are encoded in
+     * a {@code ByteBuffer} with a compact binary layout, so a slug holds a
+     * single primitive buffer for the garbage collector to skip over rather
+     * than an object per member. Generated getters decode their member on
+     * each call, and setters encode it in place. Other members are stored
+     * in an overflow map. {@link SlugBox#wrap(Class, java.nio.ByteBuffer)}
+     * creates flyweight slugs over existing (possibly off-heap) buffers.
+     *
+     * @see AbstractBufferSlug
+     */
+    BUFFER;
+}
@@ -0,0 +1,239 @@
+package io.coronet.slug;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The set of members of a slug, each bound to a fixed slot index. The root
+ * shape of a slug type holds the members declared by its interface; it's
+ * computed once when the implementation is generated and is shared by every
+ * instance of that type.
+ * <p>
+ * Slugs that store undeclared members in slots transition to a child shape
+ * with one more slot for each new member. Transitions are cached, so slugs
+ * of the same type that gain the same extra members in the same order share
+ * a single shape. Since they're kept forever, the number of shapes a slug
+ * type can ever have is capped, so that input with ever-changing
+ * undeclared members can't grow the tree without bound; once the cap is
+ * reached, slugs store new undeclared members in an overflow map.
+ */
+public final class SlugShape {
+
+    /**
+     * The maximum number of distinct transitions out of a single shape.
+     * Beyond this, slugs store new undeclared members in an overflow map
+     * instead of creating yet another shape.
+     */
+    private static final int MAX_TRANSITIONS = 64;
+
+    /**
+     * The maximum number of child shapes created under a single root shape,
+     * across all of its descendants.
+     */
+    static final int MAX_SHAPES = 1024;
+
+    /**
+     * Shapes with at most this many members are first searched by identity,
+     * which finds canonical member names without hashing them.
+     */
+    private static final int IDENTITY_SCAN = 16;
+
+    private final String[] names;
+    private final Type[] types;
+    private final Map<String, Integer> indices;
+    private final int declared;
+    private final ConcurrentMap<String, SlugShape> transitions;
+
+    // The number of child shapes created so far under the root shape;
+    // shared by the root and all of its descendants.
+    private final AtomicInteger shapes;
+
+    // Computed the first time a BUFFER slug of this type is created.
+    private volatile BufferLayout bufferLayout;
+
+    /**
+     * Creates a new root shape binding each of the given members to a slot,
+     * in the iteration order of the map.
+     *
+     * @param members the declared members of the slug type
+     */
+    SlugShape(Map<String, Type> members) {
+        int size = members.size();
+
+        this.names = new String[size];
+        this.types = new Type[size];
+
+        Map<String, Integer> map = new HashMap<>();
+        int index = 0;
+
+        for (Map.Entry<String, Type> entry : members.entrySet()) {
+            names[index] = entry.getKey();
+            types[index] = entry.getValue();
+            map.put(entry.getKey(), index);
+            index += 1;
+        }
+
+        this.indices = Collections.unmodifiableMap(map);
+        this.declared = size;
+        this.transitions = new ConcurrentHashMap<>();
+        this.shapes = new AtomicInteger();
+    }
+
+    /**
+     * Creates a child shape with one additional (undeclared) member.
+     */
+    private SlugShape(SlugShape parent, String name) {
+        int size = parent.names.length;
+
+        this.names = Arrays.copyOf(parent.names, size + 1);
+        this.types = Arrays.copyOf(parent.types, size + 1);
+
+        names[size] = MemberNames.canonical(name);
+        types[size] = Object.class;
+
+        Map<String, Integer> map = new HashMap<>(parent.indices);
+        map.put(name, size);
+
+        this.indices = Collections.unmodifiableMap(map);
+        this.declared = parent.declared;
+        this.transitions = new ConcurrentHashMap<>();
+        this.shapes = parent.shapes;
+    }
+
+    /**
+     * Returns the number of members in this shape.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of members in this shape that are declared by the
+     * slug interface. Declared members always occupy the lowest slots.
+     *
+     * @return the number of declared slots
+     */
+    public int declaredSize() {
+        return declared;
+    }
+
+    /**
+     * Returns the name of the member bound to the given slot.
+     *
+     * @param index the slot index
+     * @return the name of the member in that slot
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the declared type of the member bound to the given slot, or
+     * {@code Object.class} for undeclared members.
+     *
+     * @param index the slot index
+     * @return the declared type of the member in that slot
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public Type getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the slot index of the given member, or -1 if the member is not
+     * part of this shape.
+     *
+     * @param name the name of the member
+     * @return the slot index of the member, or -1
+     */
+    public int indexOf(String name) {
+        String[] n = names;
+        if (n.length <= IDENTITY_SCAN) {
+            for (int i = 0; i < n.length; ++i) {
+                if (n[i] == name) {
+                    return i;
+                }
+            }
+        }
+
+        Integer index = indices.get(name);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the binary layout of the declared members of this shape, for
+     * slugs with the {@link SlugLayout#BUFFER} layout.
+     *
+     * @return the buffer layout of this shape
+     */
+    BufferLayout bufferLayout() {
+        BufferLayout l = bufferLayout;
+        if (l == null) {
+            // Racing threads may both compute this; either result is fine.
+            l = new BufferLayout(this);
+            bufferLayout = l;
+        }
+        return l;
+    }
+
+    /**
+     * Returns the shape that results from adding the given member to this
+     * shape, creating and caching it if this is the first such transition.
+     * Returns null if this shape already has too many transitions, or the
+     * root shape has too many descendants.
+     *
+     * @param name the name of the member to add
+     * @return the child shape, or null
+     */
+    SlugShape withMember(String name) {
+        if (indices.containsKey(name)) {
+            return this;
+        }
+
+        SlugShape child = transitions.get(name);
+        if (child != null) {
+            return child;
+        }
+
+        if (transitions.size() >= MAX_TRANSITIONS
+                || shapes.get() >= MAX_SHAPES) {
+            return null;
+        }
+
+        // Returning null from the function leaves the transition unset.
+        return transitions.computeIfAbsent(name, n -> {
+            if (shapes.incrementAndGet() > MAX_SHAPES) {
+                shapes.decrementAndGet();
+                return null;
+            }
+            return new SlugShape(this, n);
+        });
+    }
+
+    /**
+     * Returns the number of child shapes created so far under the root of
+     * this shape.
+     *
+     * @return the number of descendants of the root shape
+     */
+    int descendants() {
+        return shapes.get();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
@@ -0,0 +1,143 @@
+package io.coronet.slug;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class BufferSlugTest {
+
+    private final SlugBox slugs = SlugBox.builder()
+            .withLayout(SlugLayout.BUFFER)
+            .build();
+
+    @Test
+    public void testRoundTrip() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setBar(123)
+                .setCount(4)
+                .setScore(1.5)
+                .setEnabled(true);
+        slug.setTotal(Long.MAX_VALUE);
+
+        ByteBuffer encoded = slugs.encode(slug);
+        Assert.assertTrue(encoded.isReadOnly());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.remaining());
+        direct.put(encoded).flip();
+
+        TestSlug copy = slugs.wrap(TestSlug.class, direct);
+        Assert.assertEquals("Hello World", copy.getFoo());
+        Assert.assertEquals(123, (int) copy.getBar());
+        Assert.assertEquals(4, copy.getCount());
+        Assert.assertEquals(Long.MAX_VALUE, copy.getTotal());
+        Assert.assertEquals(1.5, copy.getScore(), 0);
+        Assert.assertTrue(copy.getEnabled());
+        Assert.assertEquals(slug, copy);
+        Assert.assertEquals(slug.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void testWriteThrough() {
+        ByteBuffer storage = ByteBuffer.allocateDirect(256);
+        storage.put(slugs.encode(slugs.create(TestSlug.class)
+                .setFoo("Hello World")));
+        storage.clear();
+
+        TestSlug a = slugs.wrap(TestSlug.class, storage);
+        a.setCount(7).setFoo("Goodbye");
+
+        TestSlug b = slugs.wrap(TestSlug.class, storage);
+        Assert.assertEquals(7, b.getCount());
+        Assert.assertEquals("Goodbye", b.getFoo());
+    }
+
+    @Test
+    public void testReadOnlyBuffer() {
+        ByteBuffer encoded = slugs.encode(slugs.create(TestSlug.class)
+                .setFoo("Hello"));
+
+        TestSlug slug = slugs.wrap(TestSlug.class, encoded);
+        slug.setFoo("A somewhat longer string than before").setCount(1);
+
+        Assert.assertEquals("A somewhat longer string than before",
+                slug.getFoo());
+        Assert.assertEquals("Hello",
+                slugs.wrap(TestSlug.class, encoded).getFoo());
+    }
+
+    @Test
+    public void testGrowingStrings() {
+        TestSlug slug = slugs.create(TestSlug.class);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            builder.append("\u00e9x");
+            slug.setFoo(builder.toString());
+            Assert.assertEquals(builder.toString(), slug.getFoo());
+        }
+        slug.setFoo("short");
+        Assert.assertEquals("short", slug.getFoo());
+    }
+
+    @Test
+    public void testReplacedStringsAreCompacted() {
+        TestSlug slug = slugs.create(TestSlug.class).setFoo("short");
+        int size = slugs.encode(slug).remaining();
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            builder.append('x');
+            slug.setFoo(builder.toString());
+            Assert.assertTrue(slugs.encode(slug).remaining() <= size + i + 1);
+        }
+
+        slug.setFoo("short");
+        Assert.assertEquals(size, slugs.encode(slug).remaining());
+        Assert.assertEquals("short",
+                slugs.wrap(TestSlug.class, slugs.encode(slug)).getFoo());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCorruptString() {
+        ByteBuffer encoded = slugs.encode(slugs.create(TestSlug.class)
+                .setFoo("Hello"));
+
+        ByteBuffer corrupt = ByteBuffer.allocate(encoded.remaining());
+        corrupt.put(encoded).flip();
+
+        // Claim the string bytes aren't in use.
+        corrupt.putInt(0, corrupt.getInt(0) - 5);
+        slugs.wrap(TestSlug.class, corrupt);
+    }
+
+    @Test
+    public void testOverflow() {
+        TestSlug slug = slugs.create(TestSlug.class).setFoo("Hello");
+        slug.set("Job", "Cat Dad");
+
+        Assert.assertEquals("Cat Dad", slug.get("Job"));
+
+        try {
+            slugs.encode(slug);
+            Assert.fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+
+        slug.set("Job", null);
+        slugs.encode(slug);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCorruptBuffer() {
+        slugs.wrap(TestSlug.class, ByteBuffer.allocate(2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongLayout() {
+        new SlugBox().wrap(TestSlug.class, ByteBuffer.allocate(64));
+    }
+}
@@ -0,0 +1,105 @@
+package io.coronet.slug;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class ChangeTrackingTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        return Layouts.all();
+    }
+
+    private final SlugLayout layout;
+    private final SlugBox slugs;
+
+    public ChangeTrackingTest(SlugLayout layout) {
+        this.layout = layout;
+        this.slugs = SlugBox.builder()
+                .withLayout(layout)
+                .withChangeTracking(true)
+                .build();
+    }
+
+    @Test
+    public void testUntracked() {
+        TestSlug slug = SlugBox.builder()
+                .withLayout(layout)
+                .build()
+                .create(TestSlug.class)
+                .setFoo("Hello World");
+
+        Assert.assertNull(slug.changes());
+        Assert.assertSame(slug, slug.clearChanges());
+    }
+
+    @Test
+    public void testChanges() {
+        TestSlug slug = slugs.create(TestSlug.class,
+                Collections.singletonMap("Foo", "Hello World"));
+
+        Assert.assertTrue(slug.changes().isEmpty());
+
+        slug.setBar(123).setCount(1);
+        slug.set("Job", "Cat Dad");
+        slug.asMap().remove("Foo");
+        Assert.assertEquals(
+                set("Bar", "Count", "Job", "Foo"),
+                slug.changes());
+
+        slug.clearChanges();
+        Assert.assertTrue(slug.changes().isEmpty());
+
+        Iterator<Map.Entry<String, Object>> it = slug.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("Job")) {
+                it.remove();
+            } else if (entry.getKey().equals("Bar")) {
+                entry.setValue(456);
+            }
+        }
+        Assert.assertEquals(set("Bar", "Job"), slug.changes());
+        Assert.assertEquals(456, (int) slug.getBar());
+    }
+
+    @Test
+    public void testCopies() {
+        TestSlug slug = slugs.create(TestSlug.class).setFoo("Hello World");
+
+        TestSlug copy = slugs.copy(slug);
+        Assert.assertTrue(copy.changes().isEmpty());
+        copy.setBar(1);
+        Assert.assertEquals(set("Bar"), copy.changes());
+        Assert.assertEquals(set("Foo"), slug.changes());
+
+        TestSlug updated = slug.makeImmutable().with("Count", 2);
+        Assert.assertEquals(set("Foo", "Count"), updated.changes());
+        Assert.assertEquals(set("Foo"), slug.changes());
+
+        try {
+            slug.clearChanges();
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static Set<String> set(String... members) {
+        return new HashSet<>(Arrays.asList(members));
+    }
+}
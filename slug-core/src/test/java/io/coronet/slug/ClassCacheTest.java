@@ -0,0 +1,111 @@
+package io.coronet.slug;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ */
+public class ClassCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SlugBox box(SlugLayout layout, Path cache) {
+        return SlugBox.builder()
+                .withLayout(layout)
+                .withClassCache(cache)
+                .build();
+    }
+
+    private static Path path(Path cache, String name) {
+        return cache.resolve(name.replace('.', '/') + ".class");
+    }
+
+    @Test
+    public void testStoresGeneratedClasses() throws IOException {
+        Path cache = folder.getRoot().toPath();
+        SlugBox slugs = box(SlugLayout.FIELDS, cache);
+
+        slugs.create(TestSlug.class).setFoo("Hello World");
+
+        Map<String, byte[]> classes = slugs.generateClasses(TestSlug.class);
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Assert.assertArrayEquals(
+                    entry.getValue(),
+                    Files.readAllBytes(path(cache, entry.getKey())));
+        }
+    }
+
+    @Test
+    public void testUsesCachedClasses() {
+        Path cache = folder.getRoot().toPath();
+        box(SlugLayout.SHAPE, cache).create(TestSlug.class);
+
+        TestSlug slug = box(SlugLayout.SHAPE, cache).create(TestSlug.class);
+        Assert.assertTrue(slug instanceof AbstractShapeSlug);
+
+        slug.setFoo("Hello World").setCount(12);
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals(12, slug.getCount());
+    }
+
+    @Test
+    public void testReplacesMismatchedLayout() throws IOException {
+        Path cache = folder.getRoot().toPath();
+        box(SlugLayout.FIELDS, cache).create(TestSlug.class);
+
+        SlugBox slugs = box(SlugLayout.MAP, cache);
+        TestSlug slug = slugs.create(TestSlug.class);
+        Assert.assertTrue(slug instanceof AbstractSlug);
+
+        String impl = TestSlug.class.getName() + "$$Impl";
+        Assert.assertArrayEquals(
+                slugs.generateClasses(TestSlug.class).get(impl),
+                Files.readAllBytes(path(cache, impl)));
+    }
+
+    @Test
+    public void testIgnoresCorruptClasses() throws IOException {
+        Path cache = folder.getRoot().toPath();
+        String impl = TestSlug.class.getName() + "$$Impl";
+        String factory = impl + "$$Factory";
+
+        Files.createDirectories(path(cache, impl).getParent());
+        Files.write(path(cache, impl), new byte[] { 1, 2, 3 });
+        Files.write(path(cache, factory), new byte[] {
+            (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0
+        });
+
+        SlugBox slugs = box(SlugLayout.FIELDS, cache);
+        TestSlug slug = slugs.create(TestSlug.class).setFoo("Hello World");
+        Assert.assertEquals("Hello World", slug.getFoo());
+
+        Assert.assertArrayEquals(
+                slugs.generateClasses(TestSlug.class).get(factory),
+                Files.readAllBytes(path(cache, factory)));
+    }
+
+    @Test
+    public void testHiddenClasses() {
+        Path cache = folder.getRoot().toPath();
+        for (int i = 0; i < 2; ++i) {
+            TestSlug slug = SlugBox.builder()
+                    .withLayout(SlugLayout.FIELDS)
+                    .withHiddenClasses(true)
+                    .withClassCache(cache)
+                    .build()
+                    .create(TestSlug.class)
+                    .setFoo("Hello World");
+
+            Assert.assertEquals("Hello World", slug.getFoo());
+        }
+    }
+}
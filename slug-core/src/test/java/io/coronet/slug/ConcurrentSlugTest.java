@@ -0,0 +1,120 @@
+package io.coronet.slug;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ConcurrentSlugTest {
+
+    private final SlugBox slugs = SlugBox.builder()
+            .withLayout(SlugLayout.CONCURRENT)
+            .build();
+
+    @Test
+    public void testCompareAndSet() {
+        TestSlug slug = slugs.create(TestSlug.class);
+        ConcurrentSlug c = (ConcurrentSlug) slug;
+
+        Assert.assertTrue(c.compareAndSet("Foo", null, "Hello"));
+        Assert.assertFalse(c.compareAndSet("Foo", null, "Goodbye"));
+        Assert.assertEquals("Hello", slug.getFoo());
+
+        Assert.assertFalse(c.compareAndSet("Foo", "Nope", "Goodbye"));
+        Assert.assertTrue(c.compareAndSet("Foo", "Hello", "Goodbye"));
+        Assert.assertEquals("Goodbye", slug.getFoo());
+
+        Assert.assertTrue(c.compareAndSet("Foo", "Goodbye", null));
+        Assert.assertNull(slug.getFoo());
+        Assert.assertTrue(c.compareAndSet("Foo", null, null));
+    }
+
+    @Test
+    public void testCompute() {
+        TestSlug slug = slugs.create(TestSlug.class);
+        ConcurrentSlug c = (ConcurrentSlug) slug;
+
+        Assert.assertEquals(1, c.compute("Count", v -> increment(v)));
+        Assert.assertEquals(2, c.compute("Count", v -> increment(v)));
+        Assert.assertEquals(2, slug.getCount());
+
+        Assert.assertNull(c.compute("Count", v -> null));
+        Assert.assertNull(slug.get("Count"));
+    }
+
+    @Test
+    public void testComputeTracksChanges() {
+        TestSlug slug = SlugBox.builder()
+                .withLayout(SlugLayout.CONCURRENT)
+                .withChangeTracking(true)
+                .build()
+                .create(TestSlug.class);
+        ConcurrentSlug c = (ConcurrentSlug) slug;
+
+        c.compute("Foo", v -> v);
+        Assert.assertTrue(slug.changes().isEmpty());
+
+        c.compute("Count", v -> increment(v));
+        Assert.assertEquals(
+                Collections.singleton("Count"),
+                slug.changes());
+    }
+
+    @Test
+    public void testImmutable() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello")
+                .makeImmutable();
+
+        try {
+            ((ConcurrentSlug) slug).compareAndSet("Foo", "Hello", "Goodbye");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        try {
+            ((ConcurrentSlug) slug).compute("Count", v -> 1);
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        Assert.assertEquals("Hello", slug.getFoo());
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        TestSlug slug = slugs.create(TestSlug.class);
+        ConcurrentSlug c = (ConcurrentSlug) slug;
+
+        String[] members = { "Count", "A", "B", "C" };
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 8; ++i) {
+            String member = members[i % members.length];
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; ++j) {
+                    c.compute(member, v -> increment(v));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(2000, slug.getCount());
+        Assert.assertEquals(2000, slug.get("A"));
+        Assert.assertEquals(2000, slug.get("B"));
+        Assert.assertEquals(2000, slug.get("C"));
+    }
+
+    private static Object increment(Object value) {
+        return (value == null ? 1 : (Integer) value + 1);
+    }
+}
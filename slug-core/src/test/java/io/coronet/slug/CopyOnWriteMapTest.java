@@ -0,0 +1,115 @@
+package io.coronet.slug;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CopyOnWriteMapTest {
+
+    @Test
+    public void testShare() {
+        CopyOnWriteMap map = new CopyOnWriteMap();
+        map.put("a", 1);
+        map.put("b", 2);
+
+        CopyOnWriteMap copy = map.share();
+        Assert.assertEquals(map, copy);
+
+        map.put("c", 3);
+        copy.remove("a");
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+        expected.put("c", 3);
+        Assert.assertEquals(expected, map);
+
+        expected.clear();
+        expected.put("b", 2);
+        Assert.assertEquals(expected, copy);
+    }
+
+    @Test
+    public void testIteratorAfterShare() {
+        CopyOnWriteMap map = new CopyOnWriteMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+
+        Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+        CopyOnWriteMap copy = map.share();
+
+        int count = 0;
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("b")) {
+                it.remove();
+            } else {
+                entry.setValue(10);
+            }
+            count += 1;
+        }
+
+        Assert.assertEquals(3, count);
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(10, map.get("a"));
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals(1, copy.get("a"));
+    }
+
+    @Test
+    public void testOwnedIteration() {
+        CopyOnWriteMap map = new CopyOnWriteMap();
+        map.put("a", 1);
+
+        Assert.assertSame(map.entrySet(), map.entrySet());
+
+        Map.Entry<String, Object> entry = map.entrySet().iterator().next();
+        entry.setValue(2);
+        Assert.assertEquals(2, map.get("a"));
+        Assert.assertEquals(2, entry.getValue());
+    }
+
+    @Test
+    public void testEntryKeptAcrossShare() {
+        CopyOnWriteMap map = new CopyOnWriteMap();
+        map.put("a", 1);
+
+        Map.Entry<String, Object> entry = map.entrySet().iterator().next();
+        CopyOnWriteMap copy = map.share();
+
+        entry.setValue(2);
+        Assert.assertEquals(2, map.get("a"));
+        Assert.assertEquals(2, entry.getValue());
+        Assert.assertEquals(1, copy.get("a"));
+    }
+
+    @Test
+    public void testFrozen() {
+        CopyOnWriteMap map = new CopyOnWriteMap();
+        map.put("a", 1);
+        map.freeze();
+
+        CopyOnWriteMap copy = map.share();
+        copy.put("b", 2);
+        Assert.assertEquals(1, map.size());
+
+        try {
+            map.put("b", 2);
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        try {
+            map.entrySet().iterator().next().setValue(2);
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.coronet.slug;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class HiddenClassTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        return Layouts.all();
+    }
+
+    private final SlugBox slugs;
+
+    public HiddenClassTest(SlugLayout layout) {
+        this.slugs = SlugBox.builder()
+                .withLayout(layout)
+                .withHiddenClasses(true)
+                .build();
+    }
+
+    @Test
+    public void testHiddenClass() {
+        TestSlug slug = slugs.create(TestSlug.class);
+        assumeHidden(slug);
+
+        Assert.assertSame(
+                TestSlug.class.getClassLoader(),
+                slug.getClass().getClassLoader());
+
+        slug.setFoo("Hello World").setCount(12);
+        slug.set("Job", "Cat Dad");
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals(12, slug.getCount());
+        Assert.assertEquals(3, slug.asMap().size());
+
+        TestSlug copy = slugs.copy(slug);
+        Assert.assertSame(slug.getClass(), copy.getClass());
+        Assert.assertEquals(slug, copy);
+    }
+
+    @Test
+    public void testUnloading() {
+        WeakReference<ClassLoader> ref = createAndDiscard();
+
+        for (int i = 0; i < 10 && ref.get() != null; ++i) {
+            System.gc();
+        }
+
+        Assert.assertNull(ref.get());
+    }
+
+    private WeakReference<ClassLoader> createAndDiscard() {
+        TestSlugLoader loader = new TestSlugLoader();
+        Slug<?> slug = slugs.create(loader.loadTestSlug());
+        assumeHidden(slug);
+
+        slug.set("Foo", "Hello World");
+        return new WeakReference<>(loader);
+    }
+
+    private static void assumeHidden(Object slug) {
+        // Hidden class names aren't valid binary names.
+        Assume.assumeTrue(slug.getClass().getName().contains("/"));
+    }
+}
@@ -0,0 +1,27 @@
+package io.coronet.slug;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Parameters for tests that run against every {@link SlugLayout}.
+ */
+public final class Layouts {
+
+    /**
+     * Returns one parameter set per layout, holding just the layout.
+     *
+     * @return the parameters
+     */
+    public static Collection<Object[]> all() {
+        List<Object[]> result = new ArrayList<>();
+        for (SlugLayout layout : SlugLayout.values()) {
+            result.add(new Object[] { layout });
+        }
+        return result;
+    }
+
+    private Layouts() {
+    }
+}
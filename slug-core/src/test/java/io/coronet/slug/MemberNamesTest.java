@@ -0,0 +1,42 @@
+package io.coronet.slug;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class MemberNamesTest {
+
+    @Test
+    public void testCanonical() {
+        new SlugBox().create(TestSlug.class);
+
+        String name = new String("Foo");
+        Assert.assertNotSame("Foo", name);
+        Assert.assertSame("Foo", MemberNames.canonical(name));
+
+        String unknown = new String("NotAMemberOfAnything");
+        Assert.assertSame(unknown, MemberNames.canonical(unknown));
+    }
+
+    @Test
+    public void testShapeLookup() {
+        for (SlugLayout layout : SlugLayout.values()) {
+            SlugBox slugs = SlugBox.builder().withLayout(layout).build();
+
+            Map<String, Object> map = new HashMap<>();
+            map.put(new String("Foo"), "Hello World");
+            map.put(new String("Count"), 3);
+
+            TestSlug slug = slugs.wrap(TestSlug.class, map);
+            Assert.assertEquals("Hello World", slug.getFoo());
+            Assert.assertEquals(3, slug.getCount());
+            Assert.assertEquals("Hello World",
+                    slug.get(MemberNames.canonical(new String("Foo"))));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.coronet.slug;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class NestedConversionTest {
+
+    @Parameters(name = "{0}/{1}")
+    public static Collection<Object[]> layouts() {
+        List<Object[]> result = new ArrayList<>();
+        for (Object[] layout : Layouts.all()) {
+            result.add(new Object[] { layout[0], 0 });
+        }
+        result.add(new Object[] { SlugLayout.MAP, 100 });
+        return result;
+    }
+
+    private final SlugBox slugs;
+
+    public NestedConversionTest(SlugLayout layout, int tiering) {
+        this.slugs = SlugBox.builder()
+                .withLayout(layout)
+                .withTiering(tiering)
+                .withChangeTracking(true)
+                .build();
+    }
+
+    private static Map<String, Object> raw(String foo) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("Foo", foo);
+        return map;
+    }
+
+    @Test
+    public void testNestedSlug() {
+        Map<String, Object> child = raw("child");
+        NestedSlug slug = slugs.create(NestedSlug.class,
+                Collections.singletonMap("Child", child));
+
+        TestSlug converted = slug.getChild();
+        Assert.assertEquals("child", converted.getFoo());
+        Assert.assertSame(converted, slug.getChild());
+        Assert.assertSame(converted, slug.get("Child"));
+
+        // Converting doesn't count as a change.
+        Assert.assertTrue(slug.changes().isEmpty());
+
+        // The nested slug is a view of the raw map.
+        converted.setFoo("changed");
+        Assert.assertEquals("changed", child.get("Foo"));
+
+        Assert.assertNull(slugs.create(NestedSlug.class).getChild());
+    }
+
+    @Test
+    public void testNestedList() {
+        List<Object> children = new ArrayList<>();
+        children.add(raw("a"));
+        children.add(raw("b"));
+
+        NestedSlug slug = slugs.create(NestedSlug.class,
+                Collections.singletonMap("Children", children));
+
+        List<TestSlug> list = slug.getChildren();
+        Assert.assertEquals(2, list.size());
+        Assert.assertSame(list, slug.getChildren());
+
+        // Only the elements that are read get converted.
+        TestSlug b = list.get(1);
+        Assert.assertEquals("b", b.getFoo());
+        Assert.assertSame(b, children.get(1));
+        Assert.assertTrue(children.get(0) instanceof Map);
+
+        List<String> foos = new ArrayList<>();
+        for (TestSlug element : list) {
+            foos.add(element.getFoo());
+        }
+        Assert.assertEquals(Arrays.asList("a", "b"), foos);
+    }
+
+    @Test
+    public void testNestedMap() {
+        Map<String, Object> children = new HashMap<>();
+        children.put("x", raw("a"));
+
+        NestedSlug slug = slugs.create(NestedSlug.class,
+                Collections.singletonMap("ChildMap", children));
+
+        Map<String, TestSlug> map = slug.getChildMap();
+        Assert.assertEquals("a", map.get("x").getFoo());
+        Assert.assertSame(map.get("x"), children.get("x"));
+
+        for (Map.Entry<String, TestSlug> entry : map.entrySet()) {
+            Assert.assertEquals("x", entry.getKey());
+            Assert.assertEquals("a", entry.getValue().getFoo());
+        }
+    }
+
+    @Test
+    public void testNestedLists() {
+        List<Object> row = new ArrayList<>();
+        row.add(raw("a"));
+
+        NestedSlug slug = slugs.create(NestedSlug.class,
+                Collections.singletonMap("Grid",
+                        Collections.singletonList(row)));
+
+        Assert.assertEquals("a", slug.getGrid().get(0).get(0).getFoo());
+    }
+
+    @Test
+    public void testImmutable() {
+        NestedSlug slug = slugs.create(NestedSlug.class,
+                Collections.singletonMap("Child", raw("child")))
+                .makeImmutable();
+
+        Assert.assertEquals("child", slug.getChild().getFoo());
+        Assert.assertSame(slug.getChild(), slug.getChild());
+    }
+
+    @Test
+    public void testWrappedReadOnlyMap() {
+        NestedSlug slug = slugs.wrap(NestedSlug.class,
+                Collections.singletonMap("Child", raw("child")));
+
+        Assert.assertEquals("child", slug.getChild().getFoo());
+        Assert.assertSame(slug.getChild(), slug.getChild());
+    }
+
+    @Test
+    public void testAlreadyConverted() {
+        TestSlug child = slugs.create(TestSlug.class).setFoo("child");
+        NestedSlug slug = slugs.create(NestedSlug.class).setChild(child);
+
+        Assert.assertSame(child, slug.getChild());
+    }
+}
@@ -0,0 +1,21 @@
+package io.coronet.slug;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public interface NestedSlug extends Slug<NestedSlug> {
+    TestSlug getChild();
+    NestedSlug setChild(TestSlug value);
+
+    List<TestSlug> getChildren();
+    NestedSlug setChildren(List<TestSlug> value);
+
+    Map<String, TestSlug> getChildMap();
+    NestedSlug setChildMap(Map<String, TestSlug> value);
+
+    List<List<TestSlug>> getGrid();
+    NestedSlug setGrid(List<List<TestSlug>> value);
+}
@@ -0,0 +1,83 @@
+package io.coronet.slug;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class PersistentMapTest {
+
+    @Test
+    public void testBasics() {
+        PersistentMap empty = PersistentMap.EMPTY;
+        PersistentMap one = empty.with("Foo", "Hello World");
+
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertEquals(1, one.size());
+        Assert.assertEquals("Hello World", one.get("Foo"));
+        Assert.assertNull(one.get("Bar"));
+
+        Assert.assertSame(one, one.with("Bar", null));
+        Assert.assertSame(one, one.with("Foo", one.get("Foo")));
+        Assert.assertTrue(one.with("Foo", null).isEmpty());
+
+        try {
+            one.put("Bar", "Nope");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testCollisions() {
+        // "Aa" and "BB" have the same hash code.
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        PersistentMap map = PersistentMap.EMPTY
+                .with("Aa", 1)
+                .with("BB", 2)
+                .with("AaAa", 3)
+                .with("BBBB", 4);
+
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(1, map.get("Aa"));
+        Assert.assertEquals(2, map.get("BB"));
+        Assert.assertEquals(3, map.get("AaAa"));
+        Assert.assertEquals(4, map.get("BBBB"));
+
+        map = map.with("Aa", null);
+        Assert.assertEquals(3, map.size());
+        Assert.assertNull(map.get("Aa"));
+        Assert.assertEquals(2, map.get("BB"));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        Map<String, Object> expected = new HashMap<>();
+        PersistentMap map = PersistentMap.EMPTY;
+
+        for (int i = 0; i < 20000; ++i) {
+            String key = "key" + random.nextInt(2000);
+
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.with(key, null);
+            } else {
+                expected.put(key, i);
+                map = map.with(key, i);
+            }
+        }
+
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(map, expected);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+        Assert.assertEquals(map, PersistentMap.copyOf(expected));
+    }
+}
@@ -0,0 +1,65 @@
+package io.coronet.slug;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class PregeneratedTest {
+
+    @Test
+    public void testGenerateClasses() {
+        SlugBox slugs = SlugBox.builder().withLayout(SlugLayout.FIELDS).build();
+
+        Map<String, byte[]> classes = slugs.generateClasses(TestSlug.class);
+        Assert.assertEquals(2, classes.size());
+        Assert.assertTrue(classes.containsKey(TestSlug.class.getName() + "$$Impl"));
+        Assert.assertTrue(classes.containsKey(
+                TestSlug.class.getName() + "$$Impl$$Factory"));
+
+        // Output is stable from run to run.
+        Map<String, byte[]> again = slugs.generateClasses(TestSlug.class);
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Assert.assertArrayEquals(
+                    entry.getValue(),
+                    again.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testUsesPregenerated() {
+        SlugBox slugs = SlugBox.builder().withLayout(SlugLayout.FIELDS).build();
+        TestSlugLoader loader = new TestSlugLoader(
+                slugs.generateClasses(TestSlug.class));
+
+        Class<? extends Slug<?>> type = loader.loadTestSlug();
+
+        Slug<?> slug = slugs.create(type);
+        Assert.assertSame(loader, slug.getClass().getClassLoader());
+
+        slug.set("Foo", "Hello World").set("Count", 12);
+        Assert.assertEquals("Hello World", slug.get("Foo"));
+        Assert.assertEquals(2, slug.asMap().size());
+    }
+
+    @Test
+    public void testIgnoresMismatchedLayout() {
+        TestSlugLoader loader = new TestSlugLoader(
+                SlugBox.builder()
+                        .withLayout(SlugLayout.FIELDS)
+                        .build()
+                        .generateClasses(TestSlug.class));
+
+        Class<? extends Slug<?>> type = loader.loadTestSlug();
+
+        SlugBox slugs = SlugBox.builder().withLayout(SlugLayout.SHAPE).build();
+        Slug<?> slug = slugs.create(type);
+        slug.set("Foo", "Hello World");
+
+        Assert.assertNotSame(loader, slug.getClass().getClassLoader());
+        Assert.assertTrue(slug instanceof AbstractShapeSlug);
+    }
+}
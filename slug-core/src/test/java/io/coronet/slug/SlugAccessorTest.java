@@ -0,0 +1,126 @@
+package io.coronet.slug;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class SlugAccessorTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        return Layouts.all();
+    }
+
+    private final SlugBox slugs;
+    private final SlugAccessor<TestSlug> accessor;
+
+    public SlugAccessorTest(SlugLayout layout) {
+        this.slugs = SlugBox.builder()
+                .withLayout(layout)
+                .withChangeTracking(true)
+                .build();
+        this.accessor = slugs.accessorFor(TestSlug.class);
+    }
+
+    @Test
+    public void testOrdinals() {
+        Assert.assertSame(accessor, slugs.accessorFor(TestSlug.class));
+        Assert.assertSame(TestSlug.class, accessor.type());
+        Assert.assertEquals(slugs.getMembers(TestSlug.class).size(),
+                accessor.size());
+        Assert.assertEquals(-1, accessor.ordinalOf("Nope"));
+
+        for (int i = 0; i < accessor.size(); ++i) {
+            String name = accessor.nameOf(i);
+            Assert.assertEquals(i, accessor.ordinalOf(name));
+            Assert.assertEquals(slugs.getMembers(TestSlug.class).get(name),
+                    accessor.typeOf(i));
+        }
+    }
+
+    @Test
+    public void testGetAndSet() {
+        int foo = accessor.ordinalOf("Foo");
+        int count = accessor.ordinalOf("Count");
+
+        TestSlug slug = slugs.create(TestSlug.class);
+        accessor.set(slug, foo, "Hello World");
+        accessor.set(slug, count, 12);
+
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals(12, slug.getCount());
+        Assert.assertEquals("Hello World", accessor.get(slug, foo));
+        Assert.assertEquals(12, accessor.get(slug, count));
+        Assert.assertEquals(
+                new HashSet<>(Arrays.asList("Foo", "Count")),
+                slug.changes());
+
+        // A value that doesn't fit the slot still round-trips.
+        accessor.set(slug, count, "twelve");
+        Assert.assertEquals("twelve", accessor.get(slug, count));
+        Assert.assertEquals("twelve", slug.get("Count"));
+
+        accessor.set(slug, foo, null);
+        Assert.assertNull(accessor.get(slug, foo));
+        Assert.assertNull(slug.getFoo());
+    }
+
+    @Test
+    public void testOtherImplementation() {
+        int foo = accessor.ordinalOf("Foo");
+
+        TestSlug slug = SlugBox.builder()
+                .withLayout(SlugLayout.MAP)
+                .build()
+                .create(TestSlug.class);
+
+        accessor.set(slug, foo, "Hello World");
+        Assert.assertEquals("Hello World", accessor.get(slug, foo));
+        Assert.assertEquals("Hello World", slug.getFoo());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        TestSlug slug = slugs.create(TestSlug.class,
+                Collections.singletonMap("Foo", "Hello World"))
+                .makeImmutable();
+
+        Assert.assertEquals("Hello World",
+                accessor.get(slug, accessor.ordinalOf("Foo")));
+        accessor.set(slug, accessor.ordinalOf("Foo"), "Goodbye");
+    }
+
+    @Test
+    public void testHandles() throws Throwable {
+        int foo = accessor.ordinalOf("Foo");
+        int total = accessor.ordinalOf("Total");
+
+        MethodHandle getFoo = accessor.getter(foo);
+        MethodHandle setFoo = accessor.setter(foo);
+        MethodHandle getTotal = accessor.getter(total);
+        MethodHandle setTotal = accessor.setter(total);
+
+        Assert.assertSame(getFoo, accessor.getter(foo));
+
+        TestSlug slug = slugs.create(TestSlug.class);
+
+        TestSlug result = (TestSlug) setFoo.invokeExact(slug, "Hello World");
+        setTotal.invokeExact(slug, 42L);
+
+        Assert.assertSame(slug, result);
+        Assert.assertEquals("Hello World", (String) getFoo.invokeExact(slug));
+        Assert.assertEquals(42L, (long) getTotal.invokeExact(slug));
+    }
+}
@@ -0,0 +1,89 @@
+package io.coronet.slug;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class SlugBoxStatsTest {
+
+    @Test
+    public void testStats() {
+        List<Object[]> events = new ArrayList<>();
+        SlugBox slugs = SlugBox.builder()
+                .withListener((type, source, nanos, bytes) ->
+                        events.add(new Object[] { type, source, nanos, bytes }))
+                .withCacheStats(true)
+                .build();
+
+        SlugBoxStats stats = slugs.stats();
+        Assert.assertEquals(0, stats.getTotalTypes());
+        Assert.assertEquals(0, stats.getCacheHits());
+        Assert.assertEquals(0, stats.getCacheMisses());
+
+        slugs.create(TestSlug.class);
+        slugs.create(TestSlug.class);
+        slugs.create(TestSlug.class);
+
+        stats = slugs.stats();
+        Assert.assertEquals(1, stats.getTotalTypes());
+        Assert.assertEquals(1,
+                stats.getTypes(SlugBoxListener.Source.GENERATED));
+        Assert.assertEquals(0,
+                stats.getTypes(SlugBoxListener.Source.PROXY));
+        Assert.assertEquals(1, stats.getCacheMisses());
+        Assert.assertEquals(2, stats.getCacheHits());
+        Assert.assertTrue(stats.getSetupNanos() > 0);
+        Assert.assertTrue(stats.getBytecodeBytes() > 0);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertSame(TestSlug.class, events.get(0)[0]);
+        Assert.assertSame(SlugBoxListener.Source.GENERATED, events.get(0)[1]);
+        Assert.assertEquals(stats.getSetupNanos(), events.get(0)[2]);
+        Assert.assertEquals(stats.getBytecodeBytes(),
+                ((Integer) events.get(0)[3]).longValue());
+    }
+
+    @Test
+    public void testHitsNotCountedByDefault() {
+        SlugBox slugs = new SlugBox();
+        slugs.create(TestSlug.class);
+        slugs.create(TestSlug.class);
+
+        SlugBoxStats stats = slugs.stats();
+        Assert.assertEquals(1, stats.getCacheMisses());
+        Assert.assertEquals(0, stats.getCacheHits());
+    }
+
+    @Test
+    public void testTiering() {
+        SlugBox slugs = SlugBox.builder().withTiering(2).build();
+
+        slugs.create(TestSlug.class);
+        slugs.create(TestSlug.class);
+
+        SlugBoxStats stats = slugs.stats();
+        Assert.assertEquals(2, stats.getTotalTypes());
+        Assert.assertEquals(1,
+                stats.getTypes(SlugBoxListener.Source.PROXY));
+        Assert.assertEquals(1,
+                stats.getTypes(SlugBoxListener.Source.GENERATED));
+    }
+
+    @Test
+    public void testBrokenListener() {
+        TestSlug slug = SlugBox.builder()
+                .withListener((type, source, nanos, bytes) -> {
+                    throw new IllegalStateException("oops");
+                })
+                .build()
+                .create(TestSlug.class)
+                .setFoo("Hello World");
+
+        Assert.assertEquals("Hello World", slug.getFoo());
+    }
+}
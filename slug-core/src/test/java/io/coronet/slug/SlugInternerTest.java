@@ -0,0 +1,106 @@
+package io.coronet.slug;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class SlugInternerTest {
+
+    private final SlugBox slugs = new SlugBox();
+
+    @Test
+    public void testIntern() {
+        SlugInterner interner = new SlugInterner();
+
+        TestSlug a = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setCount(1)
+                .makeImmutable();
+        TestSlug b = slugs.create(TestSlug.class)
+                .setFoo(new String("Hello World"))
+                .setCount(1)
+                .makeImmutable();
+
+        Assert.assertNotSame(a, b);
+        Assert.assertSame(a, interner.intern(a));
+        Assert.assertSame(a, interner.intern(b));
+
+        TestSlug c = a.with("Count", 2);
+        Assert.assertSame(c, interner.intern(c));
+        Assert.assertNotSame(a, interner.intern(c));
+    }
+
+    @Test
+    public void testDifferentTypes() {
+        SlugInterner interner = new SlugInterner();
+
+        TestSlug a = slugs.create(TestSlug.class).makeImmutable();
+        NestedSlug b = slugs.create(NestedSlug.class).makeImmutable();
+
+        Assert.assertSame(a, interner.intern(a));
+        Assert.assertSame(b, interner.intern(b));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMutable() {
+        new SlugInterner().intern(slugs.create(TestSlug.class));
+    }
+
+    @Test
+    public void testNested() {
+        SlugInterner interner = new SlugInterner();
+
+        TestSlug child = slugs.create(TestSlug.class)
+                .setFoo("child")
+                .makeImmutable();
+        interner.intern(child);
+
+        TestSlug copy = slugs.create(TestSlug.class)
+                .setFoo(new String("child"))
+                .makeImmutable();
+        NestedSlug parent = slugs.create(NestedSlug.class)
+                .setChild(copy)
+                .makeImmutable();
+
+        NestedSlug interned = interner.intern(parent);
+        Assert.assertEquals(parent, interned);
+        Assert.assertSame(child, interned.getChild());
+        Assert.assertSame(interned, interner.intern(parent));
+    }
+
+    @Test
+    public void testStrings() {
+        SlugInterner interner = new SlugInterner();
+
+        String hello = interner.intern(new String("Hello"));
+        Assert.assertSame(hello, interner.intern(new String("Hello")));
+
+        TestSlug slug = interner.makeImmutable(
+                slugs.create(TestSlug.class).setFoo(new String("Hello")));
+        Assert.assertSame(hello, slug.getFoo());
+    }
+
+    @Test
+    public void testBoxMakeImmutable() {
+        SlugBox box = SlugBox.builder()
+                .withInterner(new SlugInterner())
+                .build();
+
+        TestSlug a = box.makeImmutable(
+                box.create(TestSlug.class).setFoo("Hello"));
+        TestSlug b = box.makeImmutable(
+                box.create(TestSlug.class).setFoo("Hello"));
+
+        Assert.assertTrue(a.isImmutable());
+        Assert.assertSame(a, b);
+
+        TestSlug c = slugs.makeImmutable(
+                slugs.create(TestSlug.class).setFoo("Hello"));
+        TestSlug d = slugs.makeImmutable(
+                slugs.create(TestSlug.class).setFoo("Hello"));
+        Assert.assertTrue(c.isImmutable());
+        Assert.assertNotSame(c, d);
+    }
+}
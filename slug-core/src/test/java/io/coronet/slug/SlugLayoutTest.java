@@ -0,0 +1,372 @@
+package io.coronet.slug;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class SlugLayoutTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        return Layouts.all();
+    }
+
+    private static final long FIXED_FINGERPRINT = -497776382643632863L;
+
+    private final SlugBox slugs;
+
+    public SlugLayoutTest(SlugLayout layout) {
+        this.slugs = SlugBox.builder().withLayout(layout).build();
+    }
+
+    @Test
+    public void testDeclaredMembers() {
+        TestSlug slug = slugs.create(TestSlug.class);
+
+        Assert.assertNull(slug.getFoo());
+        Assert.assertTrue(slug.entrySet().isEmpty());
+
+        Assert.assertSame(slug, slug.setFoo("Hello World"));
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals("Hello World", slug.get("Foo"));
+        Assert.assertEquals(1, slug.asMap().size());
+
+        slug.set("Foo", "Goodbye");
+        Assert.assertEquals("Goodbye", slug.getFoo());
+
+        slug.setFoo(null);
+        Assert.assertNull(slug.get("Foo"));
+        Assert.assertTrue(slug.asMap().isEmpty());
+    }
+
+    @Test
+    public void testUndeclaredMembers() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World");
+
+        slug.set("Job", "Cat Dad");
+        Assert.assertEquals("Cat Dad", slug.get("Job"));
+        Assert.assertEquals(2, slug.entrySet().size());
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("Foo", "Hello World");
+        expected.put("Job", "Cat Dad");
+        Assert.assertEquals(expected, slug.asMap());
+        Assert.assertEquals(expected.hashCode(), slug.hashCode());
+
+        slug.set("Job", null);
+        Assert.assertNull(slug.get("Job"));
+        Assert.assertEquals(1, slug.entrySet().size());
+    }
+
+    @Test
+    public void testMismatchedType() {
+        TestSlug slug = slugs.create(TestSlug.class);
+
+        slug.set("Foo", 123);
+        Assert.assertEquals(123, slug.get("Foo"));
+        Assert.assertEquals(1, slug.asMap().size());
+
+        try {
+            slug.getFoo();
+            Assert.fail("expected ClassCastException");
+        } catch (ClassCastException expected) {
+        }
+
+        slug.setFoo("abc");
+        Assert.assertEquals("abc", slug.get("Foo"));
+        Assert.assertEquals(1, slug.asMap().size());
+    }
+
+    @Test
+    public void testPrimitiveMembers() {
+        TestSlug slug = slugs.create(TestSlug.class);
+
+        Assert.assertEquals(0, slug.getCount());
+        Assert.assertEquals(0L, slug.getTotal());
+        Assert.assertEquals(0.0, slug.getScore(), 0.0);
+        Assert.assertFalse(slug.getEnabled());
+        Assert.assertNull(slug.get("Count"));
+        Assert.assertTrue(slug.asMap().isEmpty());
+
+        slug.setCount(42).setScore(1.5).setEnabled(true);
+        slug.setTotal(Long.MAX_VALUE);
+
+        Assert.assertEquals(42, slug.getCount());
+        Assert.assertEquals(Long.MAX_VALUE, slug.getTotal());
+        Assert.assertEquals(1.5, slug.getScore(), 0.0);
+        Assert.assertTrue(slug.getEnabled());
+
+        Assert.assertEquals(42, slug.get("Count"));
+        Assert.assertEquals(Long.MAX_VALUE, slug.get("Total"));
+        Assert.assertEquals(1.5, slug.get("Score"));
+        Assert.assertEquals(true, slug.get("Enabled"));
+        Assert.assertEquals(4, slug.asMap().size());
+
+        // Any Number is accepted for a numeric member.
+        slug.set("Count", 7L);
+        Assert.assertEquals(7, slug.getCount());
+        slug.set("Score", java.math.BigDecimal.valueOf(2.5));
+        Assert.assertEquals(2.5, slug.getScore(), 0.0);
+
+        slug.set("Count", null);
+        Assert.assertEquals(0, slug.getCount());
+        Assert.assertNull(slug.get("Count"));
+        Assert.assertEquals(3, slug.asMap().size());
+    }
+
+    @Test
+    public void testMapView() {
+        TestSlug slug = slugs.create(TestSlug.class);
+
+        slug.asMap().put("Foo", "Hello World");
+        slug.asMap().put("Job", "Cat Dad");
+        Assert.assertEquals("Hello World", slug.getFoo());
+
+        Iterator<Map.Entry<String, Object>> it = slug.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("Foo")) {
+                entry.setValue("Goodbye");
+            } else {
+                it.remove();
+            }
+        }
+
+        Assert.assertEquals("Goodbye", slug.getFoo());
+        Assert.assertNull(slug.get("Job"));
+        Assert.assertEquals(1, slug.entrySet().size());
+    }
+
+    @Test
+    public void testCopyAndEquality() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setBar(123);
+        slug.set("Job", "Cat Dad");
+
+        TestSlug copy = slugs.copy(slug);
+        Assert.assertNotSame(slug, copy);
+        Assert.assertEquals(slug, copy);
+        Assert.assertEquals(slug.hashCode(), copy.hashCode());
+
+        TestSlug other = new SlugBox().create(TestSlug.class, slug.asMap());
+        Assert.assertEquals(other, slug);
+        Assert.assertEquals(slug, other);
+
+        copy.setBar(456);
+        Assert.assertNotEquals(slug, copy);
+        Assert.assertEquals(123, (int) slug.getBar());
+    }
+
+    @Test
+    public void testImmutable() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .makeImmutable();
+
+        Assert.assertTrue(slug.isImmutable());
+
+        try {
+            slug.setFoo("Goodbye");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        try {
+            slug.set("Job", "Cat Dad");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        try {
+            slug.asMap().remove("Foo");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        Assert.assertEquals("Hello World", slug.getFoo());
+    }
+
+    @Test
+    public void testWith() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setCount(1);
+
+        TestSlug copy = slug.with("Foo", "Goodbye").with("Job", "Cat Dad");
+        Assert.assertFalse(copy.isImmutable());
+        Assert.assertEquals("Goodbye", copy.getFoo());
+        Assert.assertEquals("Cat Dad", copy.get("Job"));
+        Assert.assertEquals(1, copy.getCount());
+
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertNull(slug.get("Job"));
+
+        copy.setCount(2);
+        Assert.assertEquals(1, slug.getCount());
+    }
+
+    @Test
+    public void testWithImmutable() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setCount(1);
+        slug.set("Job", "Cat Dad");
+        slug.makeImmutable();
+
+        TestSlug a = slug.with("Count", 2);
+        TestSlug b = a.with("Job", null).with("Pet", "Cat");
+        TestSlug c = b.with("Foo", null);
+
+        Assert.assertTrue(a.isImmutable());
+        Assert.assertTrue(c.isImmutable());
+
+        Assert.assertEquals(1, slug.getCount());
+        Assert.assertEquals("Cat Dad", slug.get("Job"));
+        Assert.assertEquals(3, slug.asMap().size());
+
+        Assert.assertEquals(2, a.getCount());
+        Assert.assertEquals("Cat Dad", a.get("Job"));
+        Assert.assertEquals("Hello World", a.getFoo());
+
+        Assert.assertNull(b.get("Job"));
+        Assert.assertEquals("Cat", b.get("Pet"));
+        Assert.assertEquals(3, b.asMap().size());
+        Assert.assertEquals("Hello World", b.getFoo());
+
+        Assert.assertNull(c.getFoo());
+        Assert.assertEquals(2, c.asMap().size());
+
+        Map<String, Object> members = new HashMap<>();
+        members.put("Count", 2);
+        members.put("Pet", "Cat");
+        Assert.assertEquals(members, c.asMap());
+        Assert.assertEquals(members.hashCode(), c.hashCode());
+
+        try {
+            c.set("Foo", "Nope");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setCount(1);
+        slug.set("Job", "Cat Dad");
+        slug.set("Pet", "Cat");
+
+        TestSlug copy = slugs.copy(slug);
+        TestSlug other = slugs.copy(slug);
+        Assert.assertEquals(slug, copy);
+
+        // Writes to the source don't show through.
+        slug.setFoo("Goodbye").setCount(2);
+        slug.set("Job", null);
+        Assert.assertEquals("Hello World", copy.getFoo());
+        Assert.assertEquals(1, copy.getCount());
+        Assert.assertEquals("Cat Dad", copy.get("Job"));
+
+        // Nor do writes to the copy.
+        Iterator<Map.Entry<String, Object>> it = copy.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("Pet")) {
+                it.remove();
+            } else if (entry.getKey().equals("Job")) {
+                entry.setValue("Dog Dad");
+            }
+        }
+        Assert.assertNull(copy.get("Pet"));
+        Assert.assertEquals("Dog Dad", copy.get("Job"));
+        Assert.assertEquals("Cat", slug.get("Pet"));
+        Assert.assertNull(slug.get("Job"));
+
+        Assert.assertEquals("Hello World", other.getFoo());
+        Assert.assertEquals("Cat Dad", other.get("Job"));
+        Assert.assertEquals("Cat", other.get("Pet"));
+        Assert.assertEquals(4, other.asMap().size());
+    }
+
+    @Test
+    public void testAdopt() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("Foo", "Hello World");
+        map.put("Job", "Cat Dad");
+
+        TestSlug slug = slugs.adopt(TestSlug.class, map);
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals("Cat Dad", slug.get("Job"));
+
+        TestSlug copy = slugs.copy(slug);
+        copy.setFoo("Goodbye");
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals("Goodbye", copy.getFoo());
+    }
+
+    @Test
+    public void testCopyImmutable() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .makeImmutable();
+
+        TestSlug copy = slugs.copy(slug);
+        Assert.assertFalse(copy.isImmutable());
+        Assert.assertEquals(slug, copy);
+
+        copy.setFoo("Goodbye");
+        copy.set("Job", "Cat Dad");
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertNull(slug.get("Job"));
+        Assert.assertTrue(slug.isImmutable());
+    }
+
+    @Test
+    public void testHashAndFingerprint() {
+        TestSlug slug = slugs.create(TestSlug.class)
+                .setFoo("Hello World")
+                .setCount(1);
+        slug.set("Job", "Cat Dad");
+
+        TestSlug other = new SlugBox().create(TestSlug.class, slug.asMap());
+        Assert.assertEquals(other.fingerprint(), slug.fingerprint());
+
+        int hash = slug.hashCode();
+        long fingerprint = slug.fingerprint();
+        slug.makeImmutable();
+        Assert.assertEquals(hash, slug.hashCode());
+        Assert.assertEquals(fingerprint, slug.fingerprint());
+
+        TestSlug updated = slug.with("Count", 2);
+        Assert.assertNotEquals(slug, updated);
+        Assert.assertNotEquals(fingerprint, updated.fingerprint());
+        Assert.assertEquals(
+                updated.asMap().hashCode(),
+                updated.hashCode());
+
+        TestSlug same = updated.with("Count", 1);
+        Assert.assertEquals(slug, same);
+        Assert.assertEquals(hash, same.hashCode());
+        Assert.assertEquals(fingerprint, same.fingerprint());
+
+        // Fingerprints don't depend on the process.
+        TestSlug fixed = slugs.create(TestSlug.class)
+                .setFoo("abc")
+                .setCount(1);
+        Assert.assertEquals(FIXED_FINGERPRINT, fixed.fingerprint());
+    }
+}
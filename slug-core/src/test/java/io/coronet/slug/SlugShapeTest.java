@@ -0,0 +1,89 @@
+package io.coronet.slug;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class SlugShapeTest {
+
+    private final SlugBox slugs = SlugBox.builder()
+            .withLayout(SlugLayout.SHAPE)
+            .build();
+
+    @Test
+    public void testSharedShape() {
+        TestSlug a = slugs.create(TestSlug.class).setFoo("a");
+        TestSlug b = slugs.create(TestSlug.class).setBar(1);
+
+        Assert.assertSame(shapeOf(a), shapeOf(b));
+        Assert.assertEquals(
+                slugs.getMembers(TestSlug.class).size(),
+                shapeOf(a).size());
+    }
+
+    @Test
+    public void testTransitions() {
+        TestSlug a = slugs.create(TestSlug.class);
+        TestSlug b = slugs.create(TestSlug.class);
+        SlugShape root = shapeOf(a);
+
+        a.set("Job", "Cat Dad").set("Pet", "Cat");
+        b.set("Job", "Dog Dad").set("Pet", "Dog");
+
+        SlugShape shape = shapeOf(a);
+        Assert.assertNotSame(root, shape);
+        Assert.assertSame(shape, shapeOf(b));
+        Assert.assertEquals(root.size() + 2, shape.size());
+        Assert.assertEquals(root.size(), shape.declaredSize());
+        Assert.assertEquals(root.size(), shape.indexOf("Job"));
+
+        Assert.assertEquals("Cat Dad", a.get("Job"));
+        Assert.assertEquals("Dog", b.get("Pet"));
+
+        // Removing a member leaves the shape alone.
+        a.set("Job", null);
+        Assert.assertSame(shape, shapeOf(a));
+        Assert.assertNull(a.get("Job"));
+        Assert.assertEquals(1, a.entrySet().size());
+    }
+
+    @Test
+    public void testOverflow() {
+        TestSlug slug = slugs.create(TestSlug.class);
+        for (int i = 0; i < 100; ++i) {
+            slug.set("Extra" + i, i);
+        }
+
+        Assert.assertEquals(100, slug.entrySet().size());
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertEquals(i, slug.get("Extra" + i));
+        }
+    }
+
+    @Test
+    public void testShapeBudget() {
+        SlugBox box = SlugBox.builder().withLayout(SlugLayout.SHAPE).build();
+        SlugShape root = shapeOf(box.create(TestSlug.class));
+
+        // Every slug picks up its own pair of extra members, as varying
+        // untrusted input would: without a budget, that's 64 shapes with
+        // one extra member, each with 64 children.
+        for (int i = 0; i < 64 * 64; ++i) {
+            TestSlug slug = box.create(TestSlug.class)
+                    .set("A" + (i % 64), 1)
+                    .set("B" + (i / 64), 2);
+
+            Assert.assertEquals(1, slug.get("A" + (i % 64)));
+            Assert.assertEquals(2, slug.get("B" + (i / 64)));
+            Assert.assertEquals(2, slug.entrySet().size());
+        }
+
+        Assert.assertEquals(SlugShape.MAX_SHAPES, root.descendants());
+    }
+
+    private static SlugShape shapeOf(Slug<?> slug) {
+        return ((AbstractShapeSlug<?>) slug).shape();
+    }
+}
@@ -2,7 +2,15 @@ package io.coronet.slug;
 
 import io.coronet.bytes.Bytes;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -56,4 +64,73 @@ public class SlugTest {
         slug.setBinary(Bytes.from("abc"));
         Assert.assertEquals("abc", slug.getBinary().toString());
     }
+
+    @Test
+    public void testConcurrentLookup() throws Exception {
+        SlugBox slugs = new SlugBox();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<SlugFactory<TestSlug>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return slugs.factoryFor(TestSlug.class);
+                }));
+            }
+            start.countDown();
+
+            SlugFactory<TestSlug> factory = futures.get(0).get();
+            for (Future<SlugFactory<TestSlug>> future : futures) {
+                Assert.assertSame(factory, future.get());
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+
+        // Each box generates its own classes.
+        Assert.assertNotSame(
+                slugs.factoryFor(TestSlug.class),
+                new SlugBox().factoryFor(TestSlug.class));
+    }
+
+    @Test
+    public void testPreload() {
+        SlugBox slugs = new SlugBox();
+        Class<? extends Slug<?>> other = new TestSlugLoader().loadTestSlug();
+
+        Map<Class<?>, Long> timings = slugs.preload(
+                Arrays.asList(TestSlug.class, other, TestSlug.class));
+
+        Assert.assertEquals(
+                Arrays.asList(TestSlug.class, other),
+                new ArrayList<>(timings.keySet()));
+        for (Long time : timings.values()) {
+            Assert.assertTrue(time >= 0);
+        }
+
+        SlugFactory<TestSlug> factory = slugs.factoryFor(TestSlug.class);
+        slugs.preload(Collections.singletonList(TestSlug.class));
+        Assert.assertSame(factory, slugs.factoryFor(TestSlug.class));
+    }
+
+    @Test
+    public void testPreloadFailure() {
+        SlugBox slugs = new SlugBox();
+
+        @SuppressWarnings("unchecked")
+        Class<? extends Slug<?>> bogus =
+                (Class<? extends Slug<?>>) (Class<?>) AbstractSlug.class;
+
+        try {
+            slugs.preload(Arrays.asList(bogus, TestSlug.class));
+            Assert.fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
 }
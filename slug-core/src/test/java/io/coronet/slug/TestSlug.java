@@ -15,4 +15,16 @@ public interface TestSlug extends Slug<TestSlug> {
 
     Bytes getBinary();
     void setBinary(Bytes value);
+
+    int getCount();
+    TestSlug setCount(int value);
+
+    long getTotal();
+    void setTotal(long value);
+
+    double getScore();
+    TestSlug setScore(double value);
+
+    boolean getEnabled();
+    TestSlug setEnabled(boolean value);
 }
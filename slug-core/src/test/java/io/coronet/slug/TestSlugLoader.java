@@ -0,0 +1,83 @@
+package io.coronet.slug;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Loads its own copy of {@code TestSlug}, optionally along with classes
+ * generated for it ahead of time, the way they'd be found on the classpath of
+ * an application that ran the generator at build time.
+ */
+final class TestSlugLoader extends ClassLoader {
+
+    private final Map<String, byte[]> classes;
+
+    public TestSlugLoader() {
+        this(Collections.emptyMap());
+    }
+
+    public TestSlugLoader(Map<String, byte[]> classes) {
+        super(TestSlugLoader.class.getClassLoader());
+        this.classes = classes;
+    }
+
+    /**
+     * Loads this loader's copy of {@code TestSlug}. It's not the same class
+     * as the {@code TestSlug} the tests are compiled against, so it's typed
+     * loosely.
+     *
+     * @return the loaded class
+     */
+    @SuppressWarnings("unchecked")
+    public Class<? extends Slug<?>> loadTestSlug() {
+        try {
+            return (Class<? extends Slug<?>>)
+                    loadClass(TestSlug.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve)
+            throws ClassNotFoundException {
+
+        if (!name.startsWith(TestSlug.class.getName())) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                byte[] bytes = classes.get(name);
+                if (bytes == null && name.equals(TestSlug.class.getName())) {
+                    bytes = readClass(name);
+                }
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                c = defineClass(name, bytes, 0, bytes.length);
+            }
+            return c;
+        }
+    }
+
+    private byte[] readClass(String name) throws ClassNotFoundException {
+        String resource = name.replace('.', '/') + ".class";
+
+        try (InputStream in = getParent().getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+}
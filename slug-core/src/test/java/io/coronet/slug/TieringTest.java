@@ -0,0 +1,145 @@
+package io.coronet.slug;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class TieringTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        return Layouts.all();
+    }
+
+    private final SlugLayout layout;
+
+    // The CONCURRENT and BUFFER layouts never use proxies.
+    private final boolean tiered;
+
+    public TieringTest(SlugLayout layout) {
+        this.layout = layout;
+        this.tiered = (layout != SlugLayout.CONCURRENT
+                && layout != SlugLayout.BUFFER);
+    }
+
+    private SlugBox box(int threshold) {
+        return SlugBox.builder()
+                .withLayout(layout)
+                .withTiering(threshold)
+                .build();
+    }
+
+    @Test
+    public void testProxy() {
+        TestSlug slug = box(10).create(TestSlug.class);
+        Assert.assertEquals(tiered, Proxy.isProxyClass(slug.getClass()));
+
+        Assert.assertSame(TestSlug.class, slug.type());
+        Assert.assertNull(slug.getFoo());
+        Assert.assertEquals(0, slug.getCount());
+        Assert.assertFalse(slug.getEnabled());
+
+        Assert.assertSame(slug, slug.setFoo("Hello World"));
+        Assert.assertSame(slug, slug.setCount(12));
+        slug.setTotal(42L);
+        Assert.assertSame(slug, slug.set("Extra", true));
+
+        Assert.assertEquals("Hello World", slug.getFoo());
+        Assert.assertEquals(12, slug.getCount());
+        Assert.assertEquals(42L, slug.getTotal());
+        Assert.assertEquals(true, slug.get("Extra"));
+        Assert.assertEquals(4, slug.entrySet().size());
+
+        TestSlug copy = slug.with("Foo", "Goodbye");
+        Assert.assertEquals(tiered, Proxy.isProxyClass(copy.getClass()));
+        Assert.assertEquals("Goodbye", copy.getFoo());
+        Assert.assertEquals("Hello World", slug.getFoo());
+
+        Assert.assertSame(slug, slug.makeImmutable());
+        Assert.assertTrue(slug.isImmutable());
+        try {
+            slug.setFoo("Nope");
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testEquality() {
+        SlugBox slugs = box(10);
+
+        TestSlug proxy = slugs.create(TestSlug.class,
+                Collections.singletonMap("Foo", "Hello World"));
+        TestSlug generated = box(0).create(TestSlug.class,
+                Collections.singletonMap("Foo", "Hello World"));
+
+        Assert.assertEquals(tiered, Proxy.isProxyClass(proxy.getClass()));
+        Assert.assertFalse(Proxy.isProxyClass(generated.getClass()));
+
+        Assert.assertEquals(proxy, generated);
+        Assert.assertEquals(generated, proxy);
+        Assert.assertEquals(generated.hashCode(), proxy.hashCode());
+        Assert.assertEquals(generated.fingerprint(), proxy.fingerprint());
+        Assert.assertEquals(proxy, slugs.copy(proxy));
+    }
+
+    @Test
+    public void testPromotion() {
+        SlugBox slugs = box(3);
+
+        TestSlug first = slugs.create(TestSlug.class).setFoo("first");
+        TestSlug second = slugs.create(TestSlug.class);
+        TestSlug third = slugs.create(TestSlug.class).setFoo("third");
+        TestSlug fourth = slugs.create(TestSlug.class);
+
+        Assert.assertEquals(tiered, Proxy.isProxyClass(first.getClass()));
+        Assert.assertEquals(tiered, Proxy.isProxyClass(second.getClass()));
+        Assert.assertFalse(Proxy.isProxyClass(third.getClass()));
+        Assert.assertSame(third.getClass(), fourth.getClass());
+
+        Assert.assertEquals("first", first.getFoo());
+        Assert.assertEquals("third", third.getFoo());
+        Assert.assertEquals(
+                first.with("Foo", "third"),
+                slugs.copy(third));
+    }
+
+    @Test
+    public void testPreloadSkipsTiers() {
+        SlugBox slugs = box(100);
+        slugs.preload(Collections.singletonList(TestSlug.class));
+
+        TestSlug slug = slugs.create(TestSlug.class);
+        Assert.assertFalse(Proxy.isProxyClass(slug.getClass()));
+    }
+
+    @Test
+    public void testTracking() {
+        TestSlug slug = SlugBox.builder()
+                .withLayout(layout)
+                .withTiering(10)
+                .withChangeTracking(true)
+                .build()
+                .create(TestSlug.class);
+
+        Assert.assertEquals(tiered, Proxy.isProxyClass(slug.getClass()));
+        slug.setFoo("Hello World");
+        Assert.assertEquals(Collections.singleton("Foo"), slug.changes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        SlugBox.builder().withTiering(-1);
+    }
+}
@@ -18,6 +18,11 @@ public final class BinarySerializer implements Serializer<Bytes> {
         return (value instanceof Bytes);
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             Bytes value,
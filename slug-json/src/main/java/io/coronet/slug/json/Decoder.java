@@ -0,0 +1,20 @@
+package io.coronet.slug.json;
+
+/**
+ * A compiled step of a deserialization plan: turns raw values (of the class
+ * it was compiled for) into instances of one particular target type, with
+ * any decisions that depend only on the target type already made.
+ *
+ * @see Deserializer#compile(java.lang.reflect.Type, Deserializers)
+ * @see Deserializers#plan(java.lang.reflect.Type)
+ */
+public interface Decoder {
+
+    /**
+     * Decodes the given raw value.
+     *
+     * @param value the raw value to decode
+     * @return the decoded value
+     */
+    Object decode(Object value);
+}
@@ -32,4 +32,36 @@ public interface Deserializer {
      * @return the deserialized value
      */
     Object deserialize(Object value, Type target, Deserializers deserializers);
+
+    /**
+     * Returns true if, for the given target type,
+     * {@link #canDeserialize(Object, Type)} depends only on the class of the
+     * raw value, so that {@link Deserializers} can remember which
+     * deserializer handles each class of raw value rather than asking every
+     * deserializer about every value. The default implementation returns
+     * false, which is always safe.
+     *
+     * @param target the target type
+     * @return true if this deserializer's choice depends only on class
+     */
+    default boolean isClassBased(Type target) {
+        return false;
+    }
+
+    /**
+     * Compiles a {@code Decoder} that does what
+     * {@link #deserialize(Object, Type, Deserializers)} does for the given
+     * target type, for raw values this deserializer has accepted. Override
+     * me to inspect the target type (and look up plans for any nested types
+     * via {@link Deserializers#plan(Type)}) once, rather than on every
+     * value. The default implementation just calls {@code deserialize}.
+     *
+     * @param target the target type
+     * @param deserializers the set of deserializers to use for recursive
+     *            deserialization of complex elements
+     * @return a decoder for the target type
+     */
+    default Decoder compile(Type target, Deserializers deserializers) {
+        return value -> deserialize(value, target, deserializers);
+    }
 }
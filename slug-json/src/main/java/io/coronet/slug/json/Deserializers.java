@@ -6,7 +6,10 @@ import io.coronet.slug.SlugTypeRegistry;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A set of {@link Deserializer}s and a bit of logic to decide which one to
@@ -63,10 +66,16 @@ public final class Deserializers {
                 .with(new SlugDeserializer(box, registry));
     }
 
+    private static final Decoder IDENTITY = value -> value;
+
     private final List<Deserializer> deserializers;
+    private final ConcurrentHashMap<Type, Plan> plans;
+    private final Plan untyped;
 
     private Deserializers(List<Deserializer> deserializers) {
         this.deserializers = deserializers;
+        this.plans = new ConcurrentHashMap<>();
+        this.untyped = new Plan(null);
     }
 
     /**
@@ -92,11 +101,41 @@ public final class Deserializers {
         return null;
     }
 
+    /**
+     * Gets the deserialization plan for the given target type. A plan gives
+     * the same results as looking up a deserializer with
+     * {@link #getDeserializer(Object, Type)} for each value, but the first
+     * time it sees a raw value of a new class it picks the deserializer and
+     * has it {@link Deserializer#compile compile} a {@code Decoder}, and
+     * reuses that decoder for later values of the same class - unless one of
+     * the deserializers consulted isn't
+     * {@link Deserializer#isClassBased(Type) class-based}, in which case it
+     * falls back to looking up a deserializer for each value of that class.
+     * <p>
+     * Plans are cached per target type and belong to this (immutable) set of
+     * deserializers; a set built from {@link #copy()} starts with its own.
+     * Nested plans are resolved lazily, so recursive types are fine.
+     *
+     * @param target the target type, or null
+     * @return the plan for the target type
+     */
+    public Decoder plan(Type target) {
+        if (target == null) {
+            return untyped;
+        }
+        Plan plan = plans.get(target);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(target, Plan::new);
+        }
+        return plan;
+    }
+
     /**
      * A convenience method that calls {@link #getDeserializer(Object, Type)}
      * and invokes {@link Deserializer#deserialize(Object, Type)} if an
      * appropriate deserializer is found. If no deserializer is found, the
-     * input value is returned unmodified.
+     * input value is returned unmodified. Implemented by running the
+     * {@link #plan(Type) plan} for the target type.
      *
      * @param value the raw value being deserialized
      * @param target the target type we're trying to deserialize to
@@ -104,6 +143,13 @@ public final class Deserializers {
      *             deserializer is found)
      */
     public Object deserializeTo(Object value, Type target) {
+        return plan(target).decode(value);
+    }
+
+    /**
+     * Looks up a deserializer for the given value the slow way.
+     */
+    private Object deserializeSlowly(Object value, Type target) {
         Deserializer deserializer = getDeserializer(value, target);
         if (deserializer == null) {
             return value;
@@ -111,6 +157,87 @@ public final class Deserializers {
         return deserializer.deserialize(value, target, this);
     }
 
+    /**
+     * The plan for a single target type: a decoder per class of raw value.
+     */
+    private final class Plan implements Decoder {
+
+        private final Type target;
+
+        /**
+         * Used for classes of raw value whose deserializer has to be chosen
+         * per value, because a deserializer that isn't class-based for this
+         * target type was consulted for them.
+         */
+        private final Decoder perValue;
+
+        // Copy-on-write, since new classes show up rarely once things are
+        // warm.
+        private volatile Map<Class<?>, Decoder> decoders;
+
+        Plan(Type target) {
+            this.target = target;
+            this.perValue = value -> deserializeSlowly(value, target);
+            this.decoders = new IdentityHashMap<>();
+        }
+
+        @Override
+        public Object decode(Object value) {
+            if (value == null) {
+                return deserializeSlowly(null, target);
+            }
+
+            Decoder decoder = decoders.get(value.getClass());
+            if (decoder == null) {
+                return resolve(value);
+            }
+            return decoder.decode(value);
+        }
+
+        /**
+         * Picks a deserializer for the given value and, if the choice holds
+         * for every value of its class, compiles and remembers a decoder.
+         * Returns the decoded value.
+         */
+        private Object resolve(Object value) {
+            boolean classBased = true;
+            Deserializer match = null;
+
+            for (int i = deserializers.size() - 1; i >= 0; --i) {
+                Deserializer deserializer = deserializers.get(i);
+                classBased = classBased && deserializer.isClassBased(target);
+
+                if (deserializer.canDeserialize(value, target)) {
+                    match = deserializer;
+                    break;
+                }
+            }
+
+            Decoder decoder;
+            if (!classBased) {
+                decoder = perValue;
+            } else if (match == null) {
+                decoder = IDENTITY;
+            } else {
+                decoder = match.compile(target, Deserializers.this);
+            }
+
+            // Racing writers may lose each other's entries, which only costs
+            // another compile later.
+            Map<Class<?>, Decoder> copy = new IdentityHashMap<>(decoders);
+            copy.put(value.getClass(), decoder);
+            decoders = copy;
+
+            if (decoder == perValue) {
+                if (match == null) {
+                    return value;
+                }
+                return match.deserialize(value, target, Deserializers.this);
+            }
+            return decoder.decode(value);
+        }
+    }
+
     /**
      * Creates a mutable builder whose initial state matches this set of
      * {@code Deserializers}.
@@ -1,5 +1,8 @@
 package io.coronet.slug.json;
 
+import io.coronet.slug.MemberNames;
+import io.coronet.slug.Slug;
+import io.coronet.slug.SlugAccessor;
 import io.coronet.slug.SlugBox;
 import io.coronet.slug.SlugModule;
 import io.coronet.slug.SlugTypeRegistry;
@@ -7,6 +10,7 @@ import io.coronet.slug.SlugTypeRegistry;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -38,6 +42,8 @@ public final class JsonSlugModule implements SlugModule {
     private final Serializers serializers;
     private final Deserializers deserializers;
     private final JsonFactory factory;
+    private final boolean streaming;
+    private final boolean interned;
 
     private JsonSlugModule(Builder builder) {
         SlugBox b = builder.box;
@@ -49,7 +55,7 @@ public final class JsonSlugModule implements SlugModule {
 
         Serializers s = builder.serializers;
         if (s == null) {
-            s = Serializers.standard(r).build();
+            s = Serializers.standard(b, r).build();
         }
 
         Deserializers d = builder.deserializers;
@@ -79,6 +85,15 @@ public final class JsonSlugModule implements SlugModule {
         this.serializers = s;
         this.deserializers = d;
         this.factory = f;
+
+        // We know exactly what the standard deserializers do, so we can
+        // read straight into the objects they'd produce; custom ones need
+        // the raw tree to look at.
+        this.streaming = (builder.deserializers == null);
+
+        // Field names come back interned by default, which makes them the
+        // canonical instances of declared member names already.
+        this.interned = f.isEnabled(JsonFactory.Feature.INTERN_FIELD_NAMES);
     }
 
     @Override
@@ -148,11 +163,172 @@ public final class JsonSlugModule implements SlugModule {
             parser.nextToken();
         }
 
+        if (streaming) {
+            return read(parser, target);
+        }
+
         Object result = deserializeRaw(parser);
         result = deserializers.deserializeTo(result, target);
         return result;
     }
 
+    /**
+     * Reads a value directly into an instance of the given target type,
+     * without building a raw tree first. Produces the same result as
+     * running the standard deserializers over the raw value.
+     *
+     * @param parser the parser to read from
+     * @param target the target type, or null
+     * @return the deserialized value
+     * @throws IOException on error reading from the parser
+     */
+    private Object read(JsonParser parser, Type target) throws IOException {
+        switch (parser.getCurrentToken()) {
+        case START_ARRAY:
+            return readList(parser, elementType(target));
+
+        case START_OBJECT:
+            if (isSlugType(target)) {
+                @SuppressWarnings("unchecked")
+                Class<? extends Slug<?>> type =
+                        (Class<? extends Slug<?>>) target;
+                return readSlug(parser, type);
+            }
+            if (registry != null
+                    && (target == null || target == Object.class)) {
+                // Might carry an in-band type hint, which could come last.
+                return deserializers.deserializeTo(
+                        parseObject(parser),
+                        target);
+            }
+            return readMap(parser, target);
+
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+            if (Numbers.isNumeric(target)) {
+                return Numbers.read(parser, target);
+            }
+            return deserializers.deserializeTo(
+                    Numbers.read(parser),
+                    target);
+
+        default:
+            return deserializers.deserializeTo(
+                    deserializeRaw(parser),
+                    target);
+        }
+    }
+
+    private <T extends Slug<?>> T readSlug(
+            JsonParser parser,
+            Class<T> type) throws IOException {
+
+        SlugAccessor<T> accessor = box.accessorFor(type);
+        Map<String, Object> map = new HashMap<>();
+
+        while (nextField(parser)) {
+            String name = parser.getCurrentName();
+            Type target = null;
+
+            int ordinal = accessor.ordinalOf(name);
+            if (ordinal >= 0) {
+                name = accessor.nameOf(ordinal);
+                target = accessor.typeOf(ordinal);
+            }
+
+            parser.nextToken();
+            map.put(name, read(parser, target));
+        }
+
+        // The map is ours alone, so the slug can take it over.
+        return box.adopt(type, map);
+    }
+
+    private Map<Object, Object> readMap(
+            JsonParser parser,
+            Type target) throws IOException {
+
+        Type keyType = null;
+        Type valueType = null;
+
+        if (target instanceof ParameterizedType) {
+            ParameterizedType ptype = (ParameterizedType) target;
+            if (ptype.getRawType() == Map.class) {
+                keyType = ptype.getActualTypeArguments()[0];
+                valueType = ptype.getActualTypeArguments()[1];
+            }
+        }
+        if (keyType == String.class) {
+            keyType = null;
+        }
+
+        Map<Object, Object> map = new HashMap<>();
+
+        while (nextField(parser)) {
+            Object key = parser.getCurrentName();
+            if (keyType != null) {
+                key = deserializers.deserializeTo(key, keyType);
+            }
+
+            parser.nextToken();
+            map.put(key, read(parser, valueType));
+        }
+
+        return map;
+    }
+
+    private List<Object> readList(
+            JsonParser parser,
+            Type elementType) throws IOException {
+
+        List<Object> list = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(read(parser, elementType));
+        }
+
+        return list;
+    }
+
+    /**
+     * Advances to the next field name of the current object, returning
+     * false at the end of the object.
+     */
+    private static boolean nextField(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_OBJECT) {
+            return false;
+        }
+        if (token != JsonToken.FIELD_NAME) {
+            throw new IllegalStateException(
+                    "Unexpected token " + token + " at "
+                    + parser.getCurrentLocation());
+        }
+        return true;
+    }
+
+    private static boolean isSlugType(Type target) {
+        if (!(target instanceof Class<?>)) {
+            return false;
+        }
+        Class<?> c = (Class<?>) target;
+        return (c.isInterface() && c != Slug.class
+                && Slug.class.isAssignableFrom(c));
+    }
+
+    /**
+     * Returns the element type of a {@code List} target type, or null.
+     */
+    private static Type elementType(Type target) {
+        if (target instanceof ParameterizedType) {
+            ParameterizedType ptype = (ParameterizedType) target;
+            if (ptype.getRawType() == List.class) {
+                return ptype.getActualTypeArguments()[0];
+            }
+        }
+        return null;
+    }
+
     /**
      * Deserializes to a "raw" type, which will then be fed to the appropriate
      * {@code Deserializer}.
@@ -174,8 +350,8 @@ public final class JsonSlugModule implements SlugModule {
         case VALUE_STRING:          return parser.getText();
         case VALUE_EMBEDDED_OBJECT: return parser.getEmbeddedObject();
 
-        case VALUE_NUMBER_INT:      return parser.getBigIntegerValue();
-        case VALUE_NUMBER_FLOAT:    return parser.getDecimalValue();
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:    return Numbers.read(parser);
 
         case START_ARRAY:           return parseArray(parser);
         case START_OBJECT:          return parseObject(parser);
@@ -208,7 +384,10 @@ public final class JsonSlugModule implements SlugModule {
                         + parser.getCurrentLocation());
             }
 
-            String name = parser.getText();
+            String name = parser.getCurrentName();
+            if (!interned) {
+                name = MemberNames.canonical(name);
+            }
 
             parser.nextToken();
             Object value = deserializeRaw(parser);
@@ -274,7 +453,9 @@ public final class JsonSlugModule implements SlugModule {
          * Configures the {@code Deserializers} that this module will use to
          * deserialize objects from JSON. If left null, a basic set of
          * deserializers that can handle Booleans, Strings, Numbers, Bytes,
-         * Lists, Maps, and Slugs will be created.
+         * Lists, Maps, and Slugs will be created, and the module reads
+         * documents straight into their final form. A custom set is run
+         * over a raw tree of Maps and Lists that's built first.
          *
          * @param d the set of {@code Deserializers} to use
          * @return this builder
@@ -15,15 +15,22 @@ public final class ListDeserializer implements Deserializer {
         return (value instanceof List<?>);
     }
 
+    @Override
+    public boolean isClassBased(Type target) {
+        return true;
+    }
+
     @Override
     public Object deserialize(
             Object value,
             Type target,
             Deserializers deserializers) {
 
-        List<?> input = (List<?>) value;
-        List<Object> output = new ArrayList<>(input.size());
+        return compile(target, deserializers).decode(value);
+    }
 
+    @Override
+    public Decoder compile(Type target, Deserializers deserializers) {
         Type elementType = null;
         if (target instanceof ParameterizedType) {
             ParameterizedType ptype = (ParameterizedType) target;
@@ -32,12 +39,19 @@ public final class ListDeserializer implements Deserializer {
             }
         }
 
-        for (Object o : input) {
-            Object e = deserializers.deserializeTo(o, elementType);
+        Decoder elements = deserializers.plan(elementType);
 
-            output.add(e);
-        }
+        return value -> {
+            List<?> input = (List<?>) value;
+            List<Object> output = new ArrayList<>(input.size());
+
+            for (Object o : input) {
+                Object e = elements.decode(o);
+
+                output.add(e);
+            }
 
-        return output;
+            return output;
+        };
     }
 }
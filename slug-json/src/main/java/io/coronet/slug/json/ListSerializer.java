@@ -16,6 +16,11 @@ public final class ListSerializer implements Serializer<List<?>> {
         return (value instanceof List<?>);
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             List<?> value,
@@ -15,16 +15,22 @@ public final class MapDeserializer implements Deserializer {
         return (value instanceof Map<?, ?>);
     }
 
+    @Override
+    public boolean isClassBased(Type target) {
+        return true;
+    }
+
     @Override
     public Object deserialize(
             Object value,
             Type target,
             Deserializers deserializers) {
 
-        Map<?, ?> input = (Map<?, ?>) value;
-        Map<Object, Object> output =
-                new HashMap<>((int) (input.size() / 0.75f) + 1);
+        return compile(target, deserializers).decode(value);
+    }
 
+    @Override
+    public Decoder compile(Type target, Deserializers deserializers) {
         Type keyType = null;
         Type valueType = null;
 
@@ -36,13 +42,22 @@ public final class MapDeserializer implements Deserializer {
             }
         }
 
-        for (Map.Entry<?, ?> entry : input.entrySet()) {
-            Object k = deserializers.deserializeTo(entry.getKey(), keyType);
-            Object v = deserializers.deserializeTo(entry.getValue(), valueType);
+        Decoder keys = deserializers.plan(keyType);
+        Decoder values = deserializers.plan(valueType);
 
-            output.put(k, v);
-        }
+        return value -> {
+            Map<?, ?> input = (Map<?, ?>) value;
+            Map<Object, Object> output =
+                    new HashMap<>((int) (input.size() / 0.75f) + 1);
+
+            for (Map.Entry<?, ?> entry : input.entrySet()) {
+                Object k = keys.decode(entry.getKey());
+                Object v = values.decode(entry.getValue());
+
+                output.put(k, v);
+            }
 
-        return output;
+            return output;
+        };
     }
 }
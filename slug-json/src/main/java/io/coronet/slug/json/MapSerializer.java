@@ -17,6 +17,11 @@ public final class MapSerializer implements Serializer<Map<?, ?>> {
         return (value instanceof Map<?, ?>);
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             Map<?, ?> value,
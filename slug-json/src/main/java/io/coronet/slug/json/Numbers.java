@@ -0,0 +1,216 @@
+package io.coronet.slug.json;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads numbers from a {@code JsonParser} in the narrowest exact form,
+ * rather than always as a {@code BigInteger} or {@code BigDecimal}: an
+ * {@code Integer} or {@code Long} for integers that fit, and a
+ * {@code Double} for decimals that survive a round trip through a double
+ * (in the sense that it prints back as the same decimal, scale included).
+ * Numbers read for a known target type are decoded straight into it.
+ */
+final class Numbers {
+
+    /**
+     * Any decimal with at most this many significant digits survives a
+     * round trip through a double unchanged.
+     */
+    private static final int DOUBLE_DIGITS = 15;
+
+    /**
+     * Reads the current number token in its narrowest exact form.
+     *
+     * @param parser the parser, positioned on a number
+     * @return the number
+     * @throws IOException on error reading from the parser
+     */
+    public static Number read(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT) {
+            switch (parser.getNumberType()) {
+            case INT:   return parser.getIntValue();
+            case LONG:  return parser.getLongValue();
+            default:    return parser.getBigIntegerValue();
+            }
+        }
+
+        if (isNonNumeric(parser)) {
+            return parser.getDoubleValue();
+        }
+        if (parser.getNumberType() == JsonParser.NumberType.DOUBLE
+                && roundTrips(parser)) {
+            return parser.getDoubleValue();
+        }
+        return parser.getDecimalValue();
+    }
+
+    /**
+     * Returns true if {@link #read(JsonParser, Type)} decodes numbers
+     * straight into the given target type.
+     *
+     * @param target the target type
+     * @return true if it's a numeric type this class knows
+     */
+    public static boolean isNumeric(Type target) {
+        return (target == Byte.class || target == byte.class
+                || target == Short.class || target == short.class
+                || target == Integer.class || target == int.class
+                || target == Long.class || target == long.class
+                || target == Float.class || target == float.class
+                || target == Double.class || target == double.class
+                || target == BigInteger.class
+                || target == BigDecimal.class);
+    }
+
+    /**
+     * Reads the current number token as an instance of the given numeric
+     * target type if it fits exactly (or, for floating-point targets,
+     * rounds to it), and in its narrowest exact form if it doesn't. Gives
+     * the same result as {@link ScalarDeserializer} does for the number.
+     *
+     * @param parser the parser, positioned on a number
+     * @param target the target type, for which {@link #isNumeric} is true
+     * @return the number
+     * @throws IOException on error reading from the parser
+     */
+    public static Number read(JsonParser parser, Type target)
+            throws IOException {
+
+        boolean integral =
+                (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT);
+
+        if (target == Float.class || target == float.class) {
+            if (!integral || parser.getNumberType()
+                    == JsonParser.NumberType.BIG_INTEGER) {
+                if (isNonNumeric(parser)) {
+                    return parser.getFloatValue();
+                }
+                return Float.parseFloat(parser.getText());
+            }
+            return (float) parser.getLongValue();
+        }
+
+        if (target == Double.class || target == double.class) {
+            if (!integral || parser.getNumberType()
+                    == JsonParser.NumberType.BIG_INTEGER) {
+                return parser.getDoubleValue();
+            }
+            return (double) parser.getLongValue();
+        }
+
+        if (target == BigDecimal.class) {
+            if (isNonNumeric(parser)) {
+                return parser.getDoubleValue();
+            }
+            return parser.getDecimalValue();
+        }
+
+        if (!integral) {
+            return read(parser);
+        }
+
+        if (target == BigInteger.class) {
+            return parser.getBigIntegerValue();
+        }
+
+        Number n = read(parser);
+        if (!(n instanceof Integer)) {
+            // A Long is right for long targets, and too big for the rest.
+            return n;
+        }
+
+        int i = n.intValue();
+        if (target == Long.class || target == long.class) {
+            return (long) i;
+        }
+        if ((target == Byte.class || target == byte.class)
+                && i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE) {
+            return (byte) i;
+        }
+        if ((target == Short.class || target == short.class)
+                && i >= Short.MIN_VALUE && i <= Short.MAX_VALUE) {
+            return (short) i;
+        }
+        return n;
+    }
+
+    /**
+     * Returns true if the current token is {@code NaN} or an infinity,
+     * which parsers allowing non-numeric numbers report as decimals. Every
+     * real JSON number ends in a digit.
+     */
+    private static boolean isNonNumeric(JsonParser parser)
+            throws IOException {
+
+        if (parser.getCurrentToken() != JsonToken.VALUE_NUMBER_FLOAT) {
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int last = parser.getTextOffset() + parser.getTextLength() - 1;
+        return (chars[last] < '0' || chars[last] > '9');
+    }
+
+    /**
+     * Returns true if the current decimal token survives a round trip
+     * through the double it parses to, so that
+     * {@code BigDecimal.valueOf(double)} gives back the same value and
+     * scale that {@code getDecimalValue()} does. This isn't the same as the
+     * double holding the decimal exactly, which few decimals are.
+     * <p>
+     * Tokens written with an exponent or trailing fractional zeros, or with
+     * too many significant digits, are turned down from the text alone;
+     * the rest are checked against {@code BigDecimal.valueOf(double)}
+     * itself, since {@code Double.toString} pads some values that pass
+     * those checks (0.0001 prints as 1.0E-4, which reads back as 0.00010).
+     */
+    private static boolean roundTrips(JsonParser parser)
+            throws IOException {
+
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+
+        if (chars[end - 1] == '0') {
+            // 1.50 would come back as 1.5.
+            return false;
+        }
+
+        int digits = 0;
+        boolean leading = true;
+
+        for (int i = offset; i < end; ++i) {
+            char c = chars[i];
+            if (c == 'e' || c == 'E') {
+                // 1.5e2 would come back as 150.0.
+                return false;
+            }
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (leading && c == '0') {
+                continue;
+            }
+            leading = false;
+            digits += 1;
+        }
+
+        if (digits > DOUBLE_DIGITS) {
+            return false;
+        }
+
+        double d = parser.getDoubleValue();
+        if (Math.abs(d) < Double.MIN_NORMAL) {
+            return false;
+        }
+        return BigDecimal.valueOf(d).equals(parser.getDecimalValue());
+    }
+
+    private Numbers() {
+    }
+}
@@ -9,7 +9,11 @@ import java.util.Map;
 
 /**
  * A basic deserializer that transforms raw numeric scalars to the requested
- * {@code Number} type, if the actual value will fit.
+ * {@code Number} type, if the actual value will fit. Raw numbers arrive in
+ * their narrowest exact form: an {@code Integer} or {@code Long} for
+ * integers, a {@code Double} for decimals that round-trip through a double
+ * (scale included), and a {@code BigInteger} or {@code BigDecimal}
+ * otherwise.
  */
 public final class ScalarDeserializer implements Deserializer {
 
@@ -24,8 +28,17 @@ public final class ScalarDeserializer implements Deserializer {
         map.put(Long.class, new LongDeser());
         map.put(Float.class, new FloatDeser());
         map.put(Double.class, new DoubleDeser());
+        map.put(BigInteger.class, new BigIntegerDeser());
         map.put(BigDecimal.class, new BigDecimalDeser());
 
+        // Slugs may declare primitive members too.
+        map.put(byte.class, map.get(Byte.class));
+        map.put(short.class, map.get(Short.class));
+        map.put(int.class, map.get(Integer.class));
+        map.put(long.class, map.get(Long.class));
+        map.put(float.class, map.get(Float.class));
+        map.put(double.class, map.get(Double.class));
+
         desers = Collections.unmodifiableMap(map);
     }
 
@@ -46,14 +59,39 @@ public final class ScalarDeserializer implements Deserializer {
         return desers.get(target).deserialize(value);
     }
 
+    @Override
+    public boolean isClassBased(Type target) {
+        return true;
+    }
+
+    @Override
+    public Decoder compile(Type target, Deserializers deserializers) {
+        return desers.get(target)::deserialize;
+    }
+
 
     private static interface Deser {
         Object deserialize(Object input);
     }
 
+    /**
+     * Returns true if the given raw number is an integer that fits in a
+     * {@code long}.
+     */
+    private static boolean isLong(Object input) {
+        return (input instanceof Integer || input instanceof Long
+                || input instanceof Short || input instanceof Byte);
+    }
+
     private static final class ByteDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
+            if (isLong(input)) {
+                long l = ((Number) input).longValue();
+                if (l >= Byte.MIN_VALUE && l <= Byte.MAX_VALUE) {
+                    return (byte) l;
+                }
+            }
             if (input instanceof BigInteger) {
                 BigInteger bi = (BigInteger) input;
                 if (bi.bitLength() < 8) {
@@ -67,6 +105,12 @@ public final class ScalarDeserializer implements Deserializer {
     private static final class ShortDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
+            if (isLong(input)) {
+                long l = ((Number) input).longValue();
+                if (l >= Short.MIN_VALUE && l <= Short.MAX_VALUE) {
+                    return (short) l;
+                }
+            }
             if (input instanceof BigInteger) {
                 BigInteger bi = (BigInteger) input;
                 if (bi.bitLength() < 16) {
@@ -80,6 +124,12 @@ public final class ScalarDeserializer implements Deserializer {
     private static final class IntegerDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
+            if (isLong(input)) {
+                long l = ((Number) input).longValue();
+                if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                    return (int) l;
+                }
+            }
             if (input instanceof BigInteger) {
                 BigInteger bi = (BigInteger) input;
                 if (bi.bitLength() < 32) {
@@ -93,6 +143,9 @@ public final class ScalarDeserializer implements Deserializer {
     private static final class LongDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
+            if (isLong(input)) {
+                return ((Number) input).longValue();
+            }
             if (input instanceof BigInteger) {
                 BigInteger bi = (BigInteger) input;
                 if (bi.bitLength() < 64) {
@@ -103,14 +156,23 @@ public final class ScalarDeserializer implements Deserializer {
         }
     }
 
-    private static final class FloatDeser implements Deser {
+    private static final class BigIntegerDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
-            if (input instanceof BigInteger) {
-                return ((BigInteger) input).floatValue();
+            if (isLong(input)) {
+                return BigInteger.valueOf(((Number) input).longValue());
             }
-            if (input instanceof BigDecimal) {
-                return ((BigDecimal) input).floatValue();
+            return input;
+        }
+    }
+
+    private static final class FloatDeser implements Deser {
+        @Override
+        public Object deserialize(Object input) {
+            if (isLong(input) || input instanceof Double
+                    || input instanceof BigInteger
+                    || input instanceof BigDecimal) {
+                return ((Number) input).floatValue();
             }
             return input;
         }
@@ -119,11 +181,10 @@ public final class ScalarDeserializer implements Deserializer {
     private static final class DoubleDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
-            if (input instanceof BigInteger) {
-                return ((BigInteger) input).doubleValue();
-            }
-            if (input instanceof BigDecimal) {
-                return ((BigDecimal) input).doubleValue();
+            if (isLong(input) || input instanceof Float
+                    || input instanceof BigInteger
+                    || input instanceof BigDecimal) {
+                return ((Number) input).doubleValue();
             }
             return input;
         }
@@ -132,6 +193,13 @@ public final class ScalarDeserializer implements Deserializer {
     private static final class BigDecimalDeser implements Deser {
         @Override
         public Object deserialize(Object input) {
+            if (isLong(input)) {
+                return BigDecimal.valueOf(((Number) input).longValue());
+            }
+            if (input instanceof Double) {
+                // Raw doubles are only used for decimals that round-trip.
+                return BigDecimal.valueOf((Double) input);
+            }
             if (input instanceof BigInteger) {
                 return new BigDecimal((BigInteger) input);
             }
@@ -39,6 +39,11 @@ public final class ScalarSerializer implements Serializer<Object> {
         return sers.containsKey(value.getClass());
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             Object value,
@@ -21,6 +21,19 @@ public interface Serializer<T> {
      */
     boolean canSerialize(Object value);
 
+    /**
+     * Returns true if {@link #canSerialize(Object)} depends only on the
+     * class of the value, so that {@link Serializers} can remember which
+     * serializer handles each class rather than asking every serializer
+     * about every value. The default implementation returns false, which
+     * is always safe.
+     *
+     * @return true if this serializer's choice depends only on class
+     */
+    default boolean isClassBased() {
+        return false;
+    }
+
     /**
      * Serializes the given value to the given {@code JsonGenerator}.
      *
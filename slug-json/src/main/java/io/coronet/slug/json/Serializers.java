@@ -1,11 +1,17 @@
 package io.coronet.slug.json;
 
+import io.coronet.slug.SlugBox;
 import io.coronet.slug.SlugTypeRegistry;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -57,10 +63,61 @@ public final class Serializers {
                 .with(new SlugSerializer(registry));
     }
 
+    /**
+     * Creates a new builder initialized with the "standard" set of serializers,
+     * including a {@link SlugSerializer} that will generate a dedicated
+     * writer for each slug type using the given {@code SlugBox}, and use the
+     * given {@code SlugTypeRegistry} to include in-band type hints. The
+     * standard serializers are registered with the lowest priority, so any
+     * custom serializers added afterwards will take precedence.
+     *
+     * @param box the {@code SlugBox} to use for accessing slugs
+     * @param registry the {@code SlugTypeRegistry} to use, or null
+     * @return a new standard builder
+     */
+    public static Builder standard(SlugBox box, SlugTypeRegistry registry) {
+        return new Builder()
+                .with(new ScalarSerializer())
+                .with(new BinarySerializer())
+                .with(new UuidSerializer())
+                .with(new ListSerializer())
+                .with(new MapSerializer())
+                .with(new SlugSerializer(box, registry));
+    }
+
+    /**
+     * Marks a class in the cache whose serializer has to be chosen per value,
+     * because a serializer that isn't class-based was consulted for it.
+     */
+    private static final Object PER_VALUE = new Object();
+
+    /**
+     * One value of each class {@link ScalarSerializer} handles.
+     */
+    private static final List<Object> SCALARS = Collections.unmodifiableList(
+            Arrays.asList(
+                    Boolean.TRUE,
+                    "",
+                    (byte) 0,
+                    (short) 0,
+                    0,
+                    0L,
+                    BigInteger.ZERO,
+                    0f,
+                    0d,
+                    BigDecimal.ZERO));
+
     private final List<Serializer<?>> serializers;
 
+    // Computed lazily; racing threads compute the same answer.
+    private volatile Boolean standardScalars;
+
+    // Copy-on-write, since new classes show up rarely once things are warm.
+    private volatile Map<Class<?>, Object> resolved;
+
     private Serializers(List<Serializer<?>> serializers) {
         this.serializers = serializers;
+        this.resolved = new IdentityHashMap<>();
     }
 
     /**
@@ -69,16 +126,38 @@ public final class Serializers {
      * registered serializer (in the reverse order they were registered) and
      * returning the first one that matches. Throws an
      * {@code IllegalStateException} if no matching serializer is found.
+     * <p>
+     * If every serializer consulted along the way is
+     * {@link Serializer#isClassBased() class-based}, the match is cached
+     * against the class of the value, and later values of the same class
+     * skip the search entirely. The cache belongs to this (immutable) set of
+     * serializers; a set built from {@link #copy()} starts with its own.
      *
      * @param value the value being serialized
      * @return an appropriate serializer
      * @throws IllegalStateException if no matching serializer is found
      */
     public Serializer<Object> getSerializer(Object value) {
+        Class<?> type = value.getClass();
+
+        Object cached = resolved.get(type);
+        if (cached != null && cached != PER_VALUE) {
+            @SuppressWarnings("unchecked")
+            Serializer<Object> erased = (Serializer<Object>) cached;
+            return erased;
+        }
+
+        boolean classBased = (cached == null);
 
         for (int i = serializers.size() - 1; i >= 0; --i) {
             Serializer<?> serializer = serializers.get(i);
+            classBased = classBased && serializer.isClassBased();
+
             if (serializer.canSerialize(value)) {
+                if (cached == null) {
+                    remember(type, classBased ? serializer : PER_VALUE);
+                }
+
                 @SuppressWarnings("unchecked")
                 Serializer<Object> erased = (Serializer<Object>) serializer;
                 return erased;
@@ -90,6 +169,60 @@ public final class Serializers {
                 + value.getClass());
     }
 
+    /**
+     * Returns true if every class of scalar that {@link ScalarSerializer}
+     * handles is always serialized by a {@code ScalarSerializer} in this
+     * set, so that generated code can write scalars directly without
+     * changing the output.
+     *
+     * @return true if scalars are serialized the standard way
+     */
+    boolean hasStandardScalars() {
+        Boolean result = standardScalars;
+        if (result == null) {
+            result = true;
+            for (Object scalar : SCALARS) {
+                if (!isStandardScalar(scalar)) {
+                    result = false;
+                    break;
+                }
+            }
+            standardScalars = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if values of the given scalar's class are always
+     * serialized by a {@code ScalarSerializer}: searching for one finds a
+     * {@code ScalarSerializer}, and only consults class-based serializers
+     * on the way, so the search would find it for any value of the class.
+     * Searches directly rather than through the cache, which may have
+     * dropped entries.
+     */
+    private boolean isStandardScalar(Object scalar) {
+        for (int i = serializers.size() - 1; i >= 0; --i) {
+            Serializer<?> serializer = serializers.get(i);
+            if (!serializer.isClassBased()) {
+                return false;
+            }
+            if (serializer.canSerialize(scalar)) {
+                return (serializer instanceof ScalarSerializer);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an entry to the cache. Racing writers may lose each other's
+     * entries, which only costs another search later.
+     */
+    private void remember(Class<?> type, Object serializer) {
+        Map<Class<?>, Object> copy = new IdentityHashMap<>(resolved);
+        copy.put(type, serializer);
+        resolved = copy;
+    }
+
     /**
      * A convenience method that calls {@link #getSerializer(Object)} and then
      * uses the resulting serializer to serialize the given value.
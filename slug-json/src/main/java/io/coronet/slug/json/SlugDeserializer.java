@@ -1,6 +1,7 @@
 package io.coronet.slug.json;
 
 import io.coronet.slug.Slug;
+import io.coronet.slug.SlugAccessor;
 import io.coronet.slug.SlugBox;
 import io.coronet.slug.SlugTypeRegistry;
 
@@ -66,38 +67,65 @@ public final class SlugDeserializer implements Deserializer {
         return false;
     }
 
+    @Override
+    public boolean isClassBased(Type target) {
+        // Untyped maps may or may not carry a type hint we know about.
+        return (registry == null || (target != null && target != Object.class));
+    }
+
     @Override
     public Object deserialize(
             Object value,
             Type target,
             Deserializers deserializers) {
 
-        Map<?, ?> input = (Map<?, ?>) value;
-
-        Class<? extends Slug<?>> st;
         if (target == null || target == Object.class) {
-            st = registry.getType((String) input.get("__type"));
-        } else {
-            @SuppressWarnings("unchecked")
-            Class<? extends Slug<?>> c = (Class<? extends Slug<?>>) target;
-            st = c;
+            // Hand off to the (cached) plan for the hinted type.
+            Map<?, ?> input = (Map<?, ?>) value;
+            Class<? extends Slug<?>> st =
+                    registry.getType((String) input.get("__type"));
+            return deserializers.plan(st).decode(value);
         }
 
-        Map<String, Type> members = box.getMembers(st);
-        Map<String, Object> output =
-                new HashMap<>((int) (input.size() / 0.75f) + 1);
+        return compile(target, deserializers).decode(value);
+    }
 
-        for (Map.Entry<?, ?> entry : input.entrySet()) {
-            String key = (String) deserializers.deserializeTo(
-                    entry.getKey(),
-                    String.class);
+    @Override
+    public Decoder compile(Type target, Deserializers deserializers) {
+        if (target == null || target == Object.class) {
+            return value -> deserialize(value, target, deserializers);
+        }
 
-            Type valueType = members.get(key);
-            Object v = deserializers.deserializeTo(entry.getValue(), valueType);
+        @SuppressWarnings("unchecked")
+        Class<? extends Slug<?>> st = (Class<? extends Slug<?>>) target;
 
-            output.put(key, v);
+        SlugAccessor<? extends Slug<?>> accessor = box.accessorFor(st);
+        Decoder[] members = new Decoder[accessor.size()];
+        for (int i = 0; i < members.length; ++i) {
+            members[i] = deserializers.plan(accessor.typeOf(i));
         }
 
-        return box.create(st, output);
+        Decoder keys = deserializers.plan(String.class);
+        Decoder others = deserializers.plan(null);
+
+        return value -> {
+            Map<?, ?> input = (Map<?, ?>) value;
+            Map<String, Object> output =
+                    new HashMap<>((int) (input.size() / 0.75f) + 1);
+
+            for (Map.Entry<?, ?> entry : input.entrySet()) {
+                String key = (String) keys.decode(entry.getKey());
+                Decoder decoder = others;
+
+                int ordinal = accessor.ordinalOf(key);
+                if (ordinal >= 0) {
+                    key = accessor.nameOf(ordinal);
+                    decoder = members[ordinal];
+                }
+                output.put(key, decoder.decode(entry.getValue()));
+            }
+
+            return box.create(st, output);
+        };
     }
 }
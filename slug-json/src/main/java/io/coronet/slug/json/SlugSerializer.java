@@ -1,19 +1,29 @@
 package io.coronet.slug.json;
 
 import io.coronet.slug.Slug;
+import io.coronet.slug.SlugBox;
 import io.coronet.slug.SlugTypeRegistry;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
 /**
  * A serializer that knows how to turn Slugs into JSON objects.
+ * <p>
+ * Given a {@code SlugBox}, it generates a dedicated {@link SlugWriter} for
+ * each slug type the first time it sees it, which writes the declared
+ * members in order with pre-encoded names, writing scalars directly rather
+ * than going back through {@link Serializers}. Only undeclared members take
+ * the generic path. Without a box, every member takes the generic path.
  */
 public final class SlugSerializer implements Serializer<Slug<?>> {
 
+    private final SlugBox box;
     private final SlugTypeRegistry registry;
+    private final ClassValue<Holder> writers;
 
     /**
      * Creates a new {@code SlugSerializer} with no backing type registry. No
@@ -31,7 +41,57 @@ public final class SlugSerializer implements Serializer<Slug<?>> {
      * @param registry the registry to wrap, or null
      */
     public SlugSerializer(SlugTypeRegistry registry) {
+        this.box = null;
         this.registry = registry;
+        this.writers = null;
+    }
+
+    /**
+     * Creates a new {@code SlugSerializer} that generates a dedicated writer
+     * for each slug type, using the given {@code SlugBox} to access the
+     * declared members of slugs, and the given type registry (if non-null)
+     * to provide in-band type information.
+     *
+     * @param box the {@code SlugBox} to use
+     * @param registry the registry to wrap, or null
+     */
+    public SlugSerializer(SlugBox box, SlugTypeRegistry registry) {
+        if (box == null) {
+            throw new NullPointerException("box");
+        }
+
+        this.box = box;
+        this.registry = registry;
+        this.writers = new ClassValue<Holder>() {
+            @Override
+            protected Holder computeValue(Class<?> type) {
+                return new Holder();
+            }
+        };
+    }
+
+    /**
+     * Returns the writer for the given slug type, creating it if it hasn't
+     * been created yet or has been reclaimed. Racing threads may each
+     * create one; either is fine.
+     */
+    private SlugWriter writerFor(Class<?> type) {
+        Holder holder = writers.get(type);
+
+        SoftReference<SlugWriter> ref = holder.writer;
+        SlugWriter writer = (ref == null ? null : ref.get());
+        if (writer == null) {
+            writer = createWriter(type);
+            holder.writer = new SoftReference<>(writer);
+        }
+        return writer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SlugWriter createWriter(Class<?> type) {
+        Class<? extends Slug<?>> st = (Class<? extends Slug<?>>) type;
+        String hint = (registry == null ? null : registry.getName(st));
+        return SlugWriters.create(box.accessorFor(st), hint);
     }
 
     @Override
@@ -39,12 +99,22 @@ public final class SlugSerializer implements Serializer<Slug<?>> {
         return (value instanceof Slug<?>);
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             Slug<?> value,
             JsonGenerator generator,
             Serializers serializers) throws IOException {
 
+        if (writers != null && serializers.hasStandardScalars()) {
+            writerFor(value.type()).write(value, generator, serializers);
+            return;
+        }
+
         generator.writeStartObject();
 
         // If we've got a registry and the slug has no explicit __type
@@ -68,4 +138,14 @@ public final class SlugSerializer implements Serializer<Slug<?>> {
 
         generator.writeEndObject();
     }
+
+    /**
+     * Holds the writer for a slug type. A writer references its slug type
+     * (through its accessor), so holding it strongly from the type's
+     * {@code ClassValue} would keep the type, and its class loader,
+     * reachable for as long as this serializer is.
+     */
+    private static final class Holder {
+        volatile SoftReference<SlugWriter> writer;
+    }
 }
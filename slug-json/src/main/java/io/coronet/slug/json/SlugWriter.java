@@ -0,0 +1,116 @@
+package io.coronet.slug.json;
+
+import io.coronet.slug.Slug;
+import io.coronet.slug.SlugAccessor;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Abstract base for runtime-generated JSON writers, each dedicated to a
+ * single slug type. A generated subclass writes the declared members of the
+ * type in order, with pre-encoded names, using the generator's
+ * type-specific write methods for booleans, strings, and numbers and
+ * falling back to {@link Serializers} for everything else. This class
+ * writes the in-band type hint and any undeclared members.
+ * <p>
+ * Public only so that generated subclasses, which live in their own class
+ * loader, can extend it.
+ *
+ * @see SlugSerializer#SlugSerializer(io.coronet.slug.SlugBox,
+ *          io.coronet.slug.SlugTypeRegistry)
+ */
+public abstract class SlugWriter {
+
+    private static final SerializableString TYPE =
+            new SerializedString("__type");
+
+    /**
+     * Reads the declared members of the slug type by ordinal.
+     */
+    protected final SlugAccessor<?> accessor;
+
+    /**
+     * The pre-encoded names of the declared members, by ordinal.
+     */
+    protected final SerializableString[] names;
+
+    private final SerializableString hint;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param accessor the accessor for the slug type
+     * @param hint the in-band type hint to write, or null
+     */
+    protected SlugWriter(SlugAccessor<?> accessor, String hint) {
+        if (accessor == null) {
+            throw new NullPointerException("accessor");
+        }
+
+        this.accessor = accessor;
+        this.names = new SerializableString[accessor.size()];
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = new SerializedString(accessor.nameOf(i));
+        }
+        this.hint = (hint == null ? null : new SerializedString(hint));
+    }
+
+    /**
+     * Writes the given slug as a JSON object.
+     *
+     * @param slug the slug to write
+     * @param generator the {@code JsonGenerator} to write it to
+     * @param serializers the set of serializers to use for members that
+     *            aren't scalars
+     * @throws IOException on error writing to the {@code generator}
+     */
+    public final void write(
+            Slug<?> slug,
+            JsonGenerator generator,
+            Serializers serializers) throws IOException {
+
+        generator.writeStartObject();
+
+        if (hint != null && slug.get("__type") == null) {
+            generator.writeFieldName(TYPE);
+            generator.writeString(hint);
+        }
+
+        int written = writeMembers(slug, generator, serializers);
+
+        // Only walk the members again if there are undeclared ones.
+        if (written < slug.entrySet().size()) {
+            for (Map.Entry<String, Object> entry : slug.entrySet()) {
+                if (entry.getValue() != null
+                        && accessor.ordinalOf(entry.getKey()) < 0) {
+
+                    generator.writeFieldName(entry.getKey());
+                    serializers.serialize(entry.getValue(), generator);
+                }
+            }
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the declared members of the given slug that are set, as fields
+     * of the current JSON object. Implemented by generated subclasses.
+     *
+     * @param slug the slug to write
+     * @param generator the {@code JsonGenerator} to write to
+     * @param serializers the set of serializers to use for members that
+     *            aren't scalars
+     * @return the number of members written
+     * @throws IOException on error writing to the {@code generator}
+     */
+    protected abstract int writeMembers(
+            Slug<?> slug,
+            JsonGenerator generator,
+            Serializers serializers) throws IOException;
+}
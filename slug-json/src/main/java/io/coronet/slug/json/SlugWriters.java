@@ -0,0 +1,428 @@
+package io.coronet.slug.json;
+
+import io.coronet.slug.SlugAccessor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a {@link SlugWriter} subclass for each slug type, the same way
+ * {@code SlugBox} generates slug implementations. Generated classes depend
+ * only on the declared members of the slug type, so they're shared by every
+ * {@code SlugSerializer}; each gets its own instances, holding its own
+ * accessor and type hint.
+ */
+final class SlugWriters {
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    private static final String SLUG = "io/coronet/slug/Slug";
+    private static final String ACCESSOR = "io/coronet/slug/SlugAccessor";
+    private static final String WRITER = Type.getInternalName(SlugWriter.class);
+    private static final String SERIALIZERS =
+            Type.getInternalName(Serializers.class);
+    private static final String GENERATOR =
+            "com/fasterxml/jackson/core/JsonGenerator";
+    private static final String SERIALIZABLE_STRING =
+            "com/fasterxml/jackson/core/SerializableString";
+
+    private static final String CONSTRUCTOR_DESC =
+            "(L" + ACCESSOR + ";L" + STRING + ";)V";
+    private static final String WRITE_MEMBERS_DESC =
+            "(L" + SLUG + ";L" + GENERATOR + ";L" + SERIALIZERS + ";)I";
+
+    // Locals of the generated writeMembers method.
+    private static final int SLUG_VAR = 1;
+    private static final int GENERATOR_VAR = 2;
+    private static final int SERIALIZERS_VAR = 3;
+    private static final int ACCESSOR_VAR = 4;
+    private static final int NAMES_VAR = 5;
+    private static final int COUNT_VAR = 6;
+    private static final int VALUE_VAR = 7;
+
+    private static final ClassValue<Holder> CLASSES = new ClassValue<Holder>() {
+        @Override
+        protected Holder computeValue(Class<?> type) {
+            // Cheap; if two threads race here, ClassValue keeps only one.
+            return new Holder();
+        }
+    };
+
+    /**
+     * Creates a writer for the slug type of the given accessor, generating
+     * its class the first time it's asked for.
+     *
+     * @param accessor the accessor for the slug type
+     * @param hint the in-band type hint to write, or null
+     * @return a new writer
+     * @throws IllegalStateException on error generating the writer
+     */
+    public static SlugWriter create(SlugAccessor<?> accessor, String hint) {
+        Holder holder = CLASSES.get(accessor.type());
+
+        Constructor<? extends SlugWriter> constructor = holder.constructor;
+        if (constructor == null) {
+            synchronized (holder) {
+                constructor = holder.constructor;
+                if (constructor == null) {
+                    constructor = define(accessor);
+                    holder.constructor = constructor;
+                }
+            }
+        }
+
+        try {
+            return constructor.newInstance(accessor, hint);
+        } catch (InstantiationException
+                | IllegalAccessException
+                | InvocationTargetException e) {
+
+            throw new IllegalStateException(
+                    "Error creating JSON writer for " + accessor.type(),
+                    e);
+        }
+    }
+
+    private static Constructor<? extends SlugWriter> define(
+            SlugAccessor<?> accessor) {
+
+        byte[] bytes = writeClass(accessor);
+        DirectLoader loader =
+                new DirectLoader(SlugWriter.class.getClassLoader());
+
+        try {
+
+            Class<? extends SlugWriter> type =
+                    loader.loadClass(bytes).asSubclass(SlugWriter.class);
+            return type.getConstructor(SlugAccessor.class, String.class);
+
+        } catch (NoSuchMethodException | LinkageError e) {
+            throw new IllegalStateException(
+                    "Error defining JSON writer for " + accessor.type(),
+                    e);
+        }
+    }
+
+    /**
+     * Generates a writer class for the declared members of the given
+     * accessor's slug type.
+     */
+    static byte[] writeClass(SlugAccessor<?> accessor) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+
+        String className =
+                Type.getInternalName(accessor.type()) + "$$JsonWriter";
+
+        // public final class ${Iface}$$JsonWriter extends SlugWriter {
+        writer.visit(
+                Opcodes.V1_8,
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                className,
+                null,
+                WRITER,
+                null);
+
+        writeConstructor(writer);
+        writeWriteMembers(writer, className, accessor);
+
+        // }
+        writer.visitEnd();
+
+        return writer.toByteArray();
+    }
+
+    private static void writeConstructor(ClassWriter writer) {
+        // public ${Iface}$$JsonWriter(SlugAccessor accessor, String hint) {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC,
+                "<init>",
+                CONSTRUCTOR_DESC,
+                null,
+                null);
+
+        visitor.visitCode();
+
+        // super(accessor, hint);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        visitor.visitVarInsn(Opcodes.ALOAD, 2);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKESPECIAL,
+                WRITER,
+                "<init>",
+                CONSTRUCTOR_DESC,
+                false);
+
+        // }
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(3, 3);
+        visitor.visitEnd();
+    }
+
+    private static void writeWriteMembers(
+            ClassWriter writer,
+            String className,
+            SlugAccessor<?> accessor) {
+
+        // protected int writeMembers(
+        //         Slug slug,
+        //         JsonGenerator generator,
+        //         Serializers serializers) throws IOException {
+        MethodVisitor visitor = writer.visitMethod(
+                Opcodes.ACC_PROTECTED,
+                "writeMembers",
+                WRITE_MEMBERS_DESC,
+                null,
+                new String[] { "java/io/IOException" });
+
+        visitor.visitCode();
+
+        // SlugAccessor accessor = this.accessor;
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(
+                Opcodes.GETFIELD,
+                className,
+                "accessor",
+                "L" + ACCESSOR + ";");
+        visitor.visitVarInsn(Opcodes.ASTORE, ACCESSOR_VAR);
+
+        // SerializableString[] names = this.names;
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(
+                Opcodes.GETFIELD,
+                className,
+                "names",
+                "[L" + SERIALIZABLE_STRING + ";");
+        visitor.visitVarInsn(Opcodes.ASTORE, NAMES_VAR);
+
+        // int count = 0;
+        visitor.visitInsn(Opcodes.ICONST_0);
+        visitor.visitVarInsn(Opcodes.ISTORE, COUNT_VAR);
+
+        for (int i = 0; i < accessor.size(); ++i) {
+            writeMember(visitor, i, accessor.typeOf(i));
+        }
+
+        // return count;
+        visitor.visitVarInsn(Opcodes.ILOAD, COUNT_VAR);
+        visitor.visitInsn(Opcodes.IRETURN);
+
+        // }
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    private static void writeMember(
+            MethodVisitor visitor,
+            int ordinal,
+            java.lang.reflect.Type type) {
+
+        Label skip = new Label();
+
+        // Object value = accessor.get(slug, ${ordinal});
+        visitor.visitVarInsn(Opcodes.ALOAD, ACCESSOR_VAR);
+        visitor.visitVarInsn(Opcodes.ALOAD, SLUG_VAR);
+        push(visitor, ordinal);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                ACCESSOR,
+                "get",
+                "(L" + SLUG + ";I)L" + OBJECT + ";",
+                false);
+        visitor.visitVarInsn(Opcodes.ASTORE, VALUE_VAR);
+
+        // if (value != null) {
+        visitor.visitVarInsn(Opcodes.ALOAD, VALUE_VAR);
+        visitor.visitJumpInsn(Opcodes.IFNULL, skip);
+
+        // count += 1;
+        visitor.visitIincInsn(COUNT_VAR, 1);
+
+        // generator.writeFieldName(names[${ordinal}]);
+        visitor.visitVarInsn(Opcodes.ALOAD, GENERATOR_VAR);
+        visitor.visitVarInsn(Opcodes.ALOAD, NAMES_VAR);
+        push(visitor, ordinal);
+        visitor.visitInsn(Opcodes.AALOAD);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                GENERATOR,
+                "writeFieldName",
+                "(L" + SERIALIZABLE_STRING + ";)V",
+                false);
+
+        Scalar scalar = Scalar.of(type);
+        if (scalar == null) {
+            writeSerialize(visitor);
+        } else {
+            Label generic = new Label();
+
+            // if (value instanceof ${Box}) {
+            visitor.visitVarInsn(Opcodes.ALOAD, VALUE_VAR);
+            visitor.visitTypeInsn(Opcodes.INSTANCEOF, scalar.box);
+            visitor.visitJumpInsn(Opcodes.IFEQ, generic);
+
+            //     generator.${write}(((${Box}) value).${unbox}());
+            visitor.visitVarInsn(Opcodes.ALOAD, GENERATOR_VAR);
+            visitor.visitVarInsn(Opcodes.ALOAD, VALUE_VAR);
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, scalar.box);
+            if (scalar.unbox != null) {
+                visitor.visitMethodInsn(
+                        Opcodes.INVOKEVIRTUAL,
+                        scalar.box,
+                        scalar.unbox,
+                        "()" + scalar.primitive,
+                        false);
+            }
+            visitor.visitMethodInsn(
+                    Opcodes.INVOKEVIRTUAL,
+                    GENERATOR,
+                    scalar.write,
+                    "(" + scalar.written + ")V",
+                    false);
+            visitor.visitJumpInsn(Opcodes.GOTO, skip);
+
+            // } else {
+            visitor.visitLabel(generic);
+            writeSerialize(visitor);
+            // }
+        }
+
+        // }
+        visitor.visitLabel(skip);
+    }
+
+    private static void writeSerialize(MethodVisitor visitor) {
+        // serializers.serialize(value, generator);
+        visitor.visitVarInsn(Opcodes.ALOAD, SERIALIZERS_VAR);
+        visitor.visitVarInsn(Opcodes.ALOAD, VALUE_VAR);
+        visitor.visitVarInsn(Opcodes.ALOAD, GENERATOR_VAR);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                SERIALIZERS,
+                "serialize",
+                "(L" + OBJECT + ";L" + GENERATOR + ";)V",
+                false);
+    }
+
+    private static void push(MethodVisitor visitor, int value) {
+        if (value <= 5) {
+            visitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            visitor.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            visitor.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            visitor.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * How to write a member of a scalar type directly: the box class to
+     * check for, how to unbox it, and the {@code JsonGenerator} method to
+     * pass it to. Matches what {@link ScalarSerializer} does.
+     */
+    private enum Scalar {
+
+        BOOLEAN(Boolean.class, "booleanValue", "Z", "writeBoolean", "Z"),
+        STRING(String.class, null, null, "writeString", "Ljava/lang/String;"),
+        BYTE(Byte.class, "byteValue", "B", "writeNumber", "S"),
+        SHORT(Short.class, "shortValue", "S", "writeNumber", "S"),
+        INTEGER(Integer.class, "intValue", "I", "writeNumber", "I"),
+        LONG(Long.class, "longValue", "J", "writeNumber", "J"),
+        FLOAT(Float.class, "floatValue", "F", "writeNumber", "F"),
+        DOUBLE(Double.class, "doubleValue", "D", "writeNumber", "D"),
+        BIG_INTEGER(BigInteger.class, null, null, "writeNumber",
+                "Ljava/math/BigInteger;"),
+        BIG_DECIMAL(BigDecimal.class, null, null, "writeNumber",
+                "Ljava/math/BigDecimal;");
+
+        private final Class<?> type;
+        final String box;
+        final String unbox;
+        final String primitive;
+        final String write;
+        final String written;
+
+        private Scalar(
+                Class<?> type,
+                String unbox,
+                String primitive,
+                String write,
+                String written) {
+
+            this.type = type;
+            this.box = Type.getInternalName(type);
+            this.unbox = unbox;
+            this.primitive = primitive;
+            this.write = write;
+            this.written = written;
+        }
+
+        /**
+         * Returns the scalar kind for the given declared member type, or
+         * null if it's not a scalar.
+         */
+        static Scalar of(java.lang.reflect.Type type) {
+            if (!(type instanceof Class<?>)) {
+                return null;
+            }
+
+            Class<?> c = (Class<?>) type;
+            if (c.isPrimitive()) {
+                c = box(c);
+            }
+
+            for (Scalar scalar : values()) {
+                if (scalar.type == c) {
+                    return scalar;
+                }
+            }
+            return null;
+        }
+
+        private static Class<?> box(Class<?> primitive) {
+            if (primitive == boolean.class) {
+                return Boolean.class;
+            } else if (primitive == byte.class) {
+                return Byte.class;
+            } else if (primitive == short.class) {
+                return Short.class;
+            } else if (primitive == int.class) {
+                return Integer.class;
+            } else if (primitive == long.class) {
+                return Long.class;
+            } else if (primitive == float.class) {
+                return Float.class;
+            } else if (primitive == double.class) {
+                return Double.class;
+            }
+            return primitive;
+        }
+    }
+
+    private static final class Holder {
+        volatile Constructor<? extends SlugWriter> constructor;
+    }
+
+    private static final class DirectLoader extends ClassLoader {
+
+        public DirectLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public Class<?> loadClass(byte[] data) {
+            return defineClass(null, data, 0, data.length, null);
+        }
+    }
+
+    private SlugWriters() {
+    }
+}
@@ -20,6 +20,11 @@ public final class UuidDeserializer implements Deserializer {
         return (value instanceof String || value instanceof byte[]);
     }
 
+    @Override
+    public boolean isClassBased(Type target) {
+        return true;
+    }
+
     @Override
     public Object deserialize(
             Object value,
@@ -16,6 +16,11 @@ public final class UuidSerializer implements Serializer<UUID> {
         return (value instanceof UUID);
     }
 
+    @Override
+    public boolean isClassBased() {
+        return true;
+    }
+
     @Override
     public void serialize(
             UUID value,
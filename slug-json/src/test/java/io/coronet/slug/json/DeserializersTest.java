@@ -0,0 +1,144 @@
+package io.coronet.slug.json;
+
+import io.coronet.slug.SlugBox;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class DeserializersTest {
+
+    private static final SlugBox box = new SlugBox();
+
+    @Test
+    public void testPlanIsCached() {
+        Deserializers deserializers = Deserializers.standard(box).build();
+        Assert.assertSame(
+                deserializers.plan(Integer.class),
+                deserializers.plan(Integer.class));
+        Assert.assertSame(deserializers.plan(null), deserializers.plan(null));
+    }
+
+    @Test
+    public void testClassBasedIsCompiledOnce() throws Exception {
+        CountingDeserializer counting = new CountingDeserializer(true);
+        Deserializers deserializers = Deserializers.standard(box)
+                .with(counting)
+                .build();
+
+        Type type = Holder.class.getMethod("getList").getGenericReturnType();
+
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals(
+                    Arrays.asList(3, "x", "x"),
+                    deserializers.deserializeTo(
+                            Arrays.asList(3, "abc", "abc"),
+                            type));
+        }
+
+        // Once each for the list, Integer elements, and String elements.
+        Assert.assertEquals(3, counting.calls);
+        Assert.assertEquals(1, counting.compiles);
+    }
+
+    @Test
+    public void testPerValueIsNotCached() {
+        CountingDeserializer counting = new CountingDeserializer(false);
+        Deserializers deserializers = Deserializers.standard(box)
+                .with(counting)
+                .build();
+
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals(3L,
+                    deserializers.deserializeTo(3, Long.class));
+            Assert.assertEquals("x",
+                    deserializers.deserializeTo("abc", Long.class));
+        }
+
+        Assert.assertEquals(20, counting.calls);
+        Assert.assertEquals(0, counting.compiles);
+    }
+
+    @Test
+    public void testCopyHasItsOwnPlans() {
+        Deserializers original = Deserializers.standard(box).build();
+        Assert.assertEquals("abc", original.deserializeTo("abc", Long.class));
+
+        Deserializers copy = original.copy()
+                .with(new CountingDeserializer(true))
+                .build();
+
+        Assert.assertEquals("x", copy.deserializeTo("abc", Long.class));
+        Assert.assertEquals("abc", original.deserializeTo("abc", Long.class));
+    }
+
+    @Test
+    public void testNestedPlans() throws Exception {
+        Deserializers deserializers = Deserializers.standard(box).build();
+        Type type = Holder.class.getMethod("getMap").getGenericReturnType();
+
+        Object result = deserializers.deserializeTo(
+                Collections.singletonMap("a", Arrays.asList(1, 2)),
+                type);
+
+        Assert.assertEquals(
+                Collections.singletonMap("a", Arrays.asList(1L, 2L)),
+                result);
+    }
+
+    /**
+     * Declares generic types to deserialize to.
+     */
+    private interface Holder {
+        List<Object> getList();
+        Map<String, List<Long>> getMap();
+    }
+
+    /**
+     * Turns Strings into "x", counting how often it's asked and compiled.
+     */
+    private static final class CountingDeserializer implements Deserializer {
+
+        private final boolean classBased;
+        private int calls;
+        private int compiles;
+
+        CountingDeserializer(boolean classBased) {
+            this.classBased = classBased;
+        }
+
+        @Override
+        public boolean canDeserialize(Object value, Type target) {
+            calls += 1;
+            return (value instanceof String);
+        }
+
+        @Override
+        public Object deserialize(
+                Object value,
+                Type target,
+                Deserializers deserializers) {
+
+            return "x";
+        }
+
+        @Override
+        public boolean isClassBased(Type target) {
+            return classBased;
+        }
+
+        @Override
+        public Decoder compile(Type target, Deserializers deserializers) {
+            compiles += 1;
+            return value -> "x";
+        }
+    }
+}
@@ -131,4 +131,97 @@ public class JsonTest {
         Bytes b = module.serialize(slug);
         System.out.println(b);
     }
+
+    @Test
+    public void testDeserializeSlug() throws IOException {
+        Bytes b = Bytes.from(
+                "{"
+                + "\"Boolean\": true,"
+                + "\"String\": \"Hello World\","
+                + "\"Number\": 123,"
+                + "\"Binary\": \"YWJj\","
+                + "\"List\": [\"a\", \"b\"],"
+                + "\"Map\": {\"a\": 1},"
+                + "\"Slug\": {\"Number\": 456},"
+                + "\"SlugList\": [{\"Number\": 1}, {\"Number\": 2}],"
+                + "\"SlugMap\": {\"child\": {\"String\": \"abc\"}},"
+                + "\"Other\": {\"x\": [1, 2.5]}"
+                + "}");
+
+        TestSlug slug = (TestSlug) module.deserializeTo(b, TestSlug.class);
+
+        Assert.assertEquals(true, slug.getBoolean());
+        Assert.assertEquals("Hello World", slug.getString());
+        Assert.assertEquals(123, (int) slug.getNumber());
+        Assert.assertEquals(Bytes.from("abc"), slug.getBinary());
+        Assert.assertEquals(Arrays.asList("a", "b"), slug.getList());
+        Assert.assertEquals(1, (int) slug.getMap().get("a"));
+        Assert.assertEquals(456, (int) slug.getSlug().getNumber());
+        Assert.assertEquals(2, (int) slug.getSlugList().get(1).getNumber());
+        Assert.assertEquals("abc",
+                slug.getSlugMap().get("child").getString());
+
+        // Matches what the deserializers make of the raw tree.
+        SlugModule tree = JsonSlugModule.builder()
+                .withSlugBox(module.getSlugBox())
+                .withDeserializers(
+                        Deserializers.standard(module.getSlugBox()).build())
+                .build();
+        Assert.assertEquals(tree.deserializeTo(b, TestSlug.class), slug);
+        Assert.assertEquals(tree.deserialize(b), module.deserialize(b));
+    }
+
+    @Test
+    public void testDeserializeNumbers() throws IOException {
+        Assert.assertEquals(3, module.deserialize(Bytes.from("3")));
+        Assert.assertEquals(1L << 40,
+                module.deserialize(Bytes.from("1099511627776")));
+        Assert.assertEquals(new BigInteger("123456789012345678901234567890"),
+                module.deserialize(
+                        Bytes.from("123456789012345678901234567890")));
+
+        Assert.assertEquals(1.5, module.deserialize(Bytes.from("1.5")));
+        Assert.assertEquals(new BigDecimal("1.50"),
+                module.deserialize(Bytes.from("1.50")));
+        Assert.assertEquals(new BigDecimal("1.5e2"),
+                module.deserialize(Bytes.from("1.5e2")));
+        Assert.assertEquals(new BigDecimal("0.0001"),
+                module.deserialize(Bytes.from("0.0001")));
+        Assert.assertEquals(new BigDecimal("0.00005"),
+                module.deserialize(Bytes.from("0.00005")));
+        Assert.assertEquals(new BigDecimal("0.12345678901234567890"),
+                module.deserialize(Bytes.from("0.12345678901234567890")));
+        Assert.assertEquals(new BigDecimal("1e400"),
+                module.deserialize(Bytes.from("1e400")));
+
+        SlugModule tree = JsonSlugModule.builder()
+                .withDeserializers(
+                        Deserializers.standard(module.getSlugBox()).build())
+                .build();
+
+        for (SlugModule m : Arrays.asList(module, tree)) {
+            Assert.assertEquals(3L,
+                    m.deserializeTo(Bytes.from("3"), Long.class));
+            Assert.assertEquals((short) 3,
+                    m.deserializeTo(Bytes.from("3"), short.class));
+            Assert.assertEquals(3.0,
+                    m.deserializeTo(Bytes.from("3"), Double.class));
+            Assert.assertEquals(0.1f,
+                    m.deserializeTo(Bytes.from("0.1"), Float.class));
+            Assert.assertEquals(new BigDecimal("0.1"),
+                    m.deserializeTo(Bytes.from("0.1"), BigDecimal.class));
+            Assert.assertEquals(new BigDecimal("1.50"),
+                    m.deserializeTo(Bytes.from("1.50"), BigDecimal.class));
+            for (String small : Arrays.asList("0.0001", "0.00005")) {
+                Assert.assertEquals(new BigDecimal(small),
+                        m.deserializeTo(Bytes.from(small), BigDecimal.class));
+                Assert.assertEquals(new BigDecimal(small),
+                        m.deserializeTo(Bytes.from(small), Object.class));
+            }
+            Assert.assertEquals(BigInteger.valueOf(3),
+                    m.deserializeTo(Bytes.from("3"), BigInteger.class));
+            Assert.assertEquals(1000,
+                    m.deserializeTo(Bytes.from("1000"), Byte.class));
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package io.coronet.slug.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ *
+ */
+public class SerializersTest {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    @Test
+    public void testClassBasedIsCached() throws IOException {
+        CountingSerializer counting = new CountingSerializer(true);
+        Serializers serializers = Serializers.standard()
+                .with(counting)
+                .build();
+
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals("\"int\"", write(serializers, i));
+            Assert.assertEquals("\"abc\"", write(serializers, "abc"));
+        }
+
+        // Once for Integer, once for String.
+        Assert.assertEquals(2, counting.calls);
+    }
+
+    @Test
+    public void testPerValueIsNotCached() throws IOException {
+        CountingSerializer counting = new CountingSerializer(false);
+        Serializers serializers = Serializers.standard()
+                .with(counting)
+                .with(new Serializer<String>() {
+                    @Override
+                    public boolean canSerialize(Object value) {
+                        return "secret".equals(value);
+                    }
+
+                    @Override
+                    public void serialize(
+                            String value,
+                            JsonGenerator generator,
+                            Serializers s) throws IOException {
+
+                        generator.writeString("***");
+                    }
+                })
+                .build();
+
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals("\"abc\"", write(serializers, "abc"));
+            Assert.assertEquals("\"***\"", write(serializers, "secret"));
+            Assert.assertEquals("\"int\"", write(serializers, i));
+        }
+
+        Assert.assertEquals(20, counting.calls);
+    }
+
+    @Test
+    public void testCopyHasItsOwnCache() throws IOException {
+        Serializers original = Serializers.standard().build();
+        Assert.assertEquals("123", write(original, 123));
+
+        Serializers copy = original.copy()
+                .with(new CountingSerializer(true))
+                .build();
+
+        Assert.assertEquals("\"int\"", write(copy, 123));
+        Assert.assertEquals("123", write(original, 123));
+    }
+
+    private static String write(Serializers serializers, Object value)
+            throws IOException {
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            serializers.serialize(value, generator);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes Integers as the string "int", counting how often it's asked.
+     */
+    private static final class CountingSerializer
+            implements Serializer<Integer> {
+
+        private final boolean classBased;
+        private int calls;
+
+        CountingSerializer(boolean classBased) {
+            this.classBased = classBased;
+        }
+
+        @Override
+        public boolean canSerialize(Object value) {
+            calls += 1;
+            return (value instanceof Integer);
+        }
+
+        @Override
+        public boolean isClassBased() {
+            return classBased;
+        }
+
+        @Override
+        public void serialize(
+                Integer value,
+                JsonGenerator generator,
+                Serializers serializers) throws IOException {
+
+            generator.writeString("int");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.coronet.slug.json;
+
+import io.coronet.bytes.Bytes;
+import io.coronet.slug.SlugBox;
+import io.coronet.slug.SlugLayout;
+import io.coronet.slug.SlugModule;
+import io.coronet.slug.SlugTypeRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ *
+ */
+@RunWith(Parameterized.class)
+public class SlugSerializerTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> layouts() {
+        List<Object[]> result = new ArrayList<>();
+        for (SlugLayout layout : SlugLayout.values()) {
+            result.add(new Object[] { layout });
+        }
+        return result;
+    }
+
+    private static final SlugTypeRegistry registry = SlugTypeRegistry.builder()
+            .with("test@1.0", TestSlug.class)
+            .build();
+
+    private final SlugBox box;
+
+    public SlugSerializerTest(SlugLayout layout) {
+        this.box = SlugBox.builder().withLayout(layout).build();
+    }
+
+    @Test
+    public void testMatchesGenericPath() throws IOException {
+        TestSlug child = box.create(TestSlug.class).setNumber(456);
+        TestSlug slug = box.create(TestSlug.class)
+                .setBoolean(true)
+                .setString("Hello World")
+                .setNumber(123)
+                .setBinary(Bytes.from("abc"))
+                .setList(Arrays.asList("a", "b"))
+                .setMap(Collections.singletonMap("a", 1))
+                .setSlug(child)
+                .setSlugList(Arrays.asList(child));
+        slug.set("Extra", 1.5);
+
+        SlugModule generated = module(Serializers.standard(box, registry));
+        SlugModule generic = module(Serializers.standard(registry));
+
+        Bytes b = generated.serialize(slug);
+        Assert.assertTrue(b.toString(),
+                b.toString().startsWith("{\"__type\":\"test@1.0\","));
+        Assert.assertTrue(b.toString(), b.toString().contains("\"Extra\":"));
+
+        Assert.assertEquals(
+                generic.deserialize(generic.serialize(slug)),
+                generic.deserialize(b));
+
+        TestSlug copy = (TestSlug) generated.deserializeTo(b, TestSlug.class);
+        Assert.assertEquals(123, (int) copy.getNumber());
+        Assert.assertEquals(456, (int) copy.getSlugList().get(0).getNumber());
+        Assert.assertEquals(1.5, copy.get("Extra"));
+    }
+
+    @Test
+    public void testMistypedMember() throws IOException {
+        TestSlug slug = box.create(TestSlug.class);
+        slug.set("Number", "not a number");
+
+        SlugModule generated = module(Serializers.standard(box, null));
+        Assert.assertEquals(
+                "{\"Number\":\"not a number\"}",
+                generated.serialize(slug).toString());
+    }
+
+    @Test
+    public void testCustomScalarSerializer() throws IOException {
+        SlugModule generated = module(Serializers.standard(box, null)
+                .with(new Serializer<Integer>() {
+                    @Override
+                    public boolean canSerialize(Object value) {
+                        return (value instanceof Integer);
+                    }
+
+                    @Override
+                    public void serialize(
+                            Integer value,
+                            JsonGenerator generator,
+                            Serializers serializers) throws IOException {
+
+                        generator.writeString("#" + value);
+                    }
+                }));
+
+        TestSlug slug = box.create(TestSlug.class).setNumber(123);
+        Assert.assertEquals(
+                "{\"Number\":\"#123\"}",
+                generated.serialize(slug).toString());
+    }
+
+    private SlugModule module(Serializers.Builder serializers) {
+        return JsonSlugModule.builder()
+                .withSlugBox(box)
+                .withTypeRegistry(registry)
+                .withSerializers(serializers.build())
+                .build();
+    }
+}
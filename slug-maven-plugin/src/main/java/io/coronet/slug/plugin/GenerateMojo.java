@@ -0,0 +1,157 @@
+package io.coronet.slug.plugin;
+
+import io.coronet.slug.Slug;
+import io.coronet.slug.SlugBox;
+import io.coronet.slug.SlugLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Generates implementation classes for every public slug interface among the
+ * project's compiled classes, and writes them next to the interfaces. At
+ * runtime, a {@code SlugBox} configured with the same layout picks these up
+ * instead of generating its own, so the first use of each slug type doesn't
+ * pay for code generation.
+ *
+ * @see SlugBox#generateClasses(Class)
+ */
+@Mojo(
+        name = "generate",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        threadSafe = true)
+public final class GenerateMojo extends AbstractMojo {
+
+    /**
+     * The directory containing the compiled slug interfaces. Generated
+     * classes are written here as well.
+     */
+    @Parameter(
+            defaultValue = "${project.build.outputDirectory}",
+            required = true)
+    private File outputDirectory;
+
+    /**
+     * The compile classpath of the project, used to load the interfaces.
+     */
+    @Parameter(
+            defaultValue = "${project.compileClasspathElements}",
+            required = true,
+            readonly = true)
+    private List<String> classpathElements;
+
+    /**
+     * The layout to generate classes for. Must match the layout of the
+     * {@code SlugBox} that will use them.
+     */
+    @Parameter(defaultValue = "MAP")
+    private SlugLayout layout;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (!outputDirectory.isDirectory()) {
+            getLog().info("No classes to process");
+            return;
+        }
+
+        SlugBox box = SlugBox.builder()
+                .withLayout(layout)
+                .withPregenerated(false)
+                .build();
+
+        int count = 0;
+
+        try (URLClassLoader loader = createClassLoader()) {
+
+            for (String name : findClassNames()) {
+                Class<?> type = loader.loadClass(name);
+                if (!isSlugInterface(type)) {
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                Class<? extends Slug<?>> slugType =
+                        (Class<? extends Slug<?>>) type;
+
+                for (Map.Entry<String, byte[]> entry
+                        : box.generateClasses(slugType).entrySet()) {
+
+                    write(entry.getKey(), entry.getValue());
+                }
+
+                count += 1;
+            }
+
+        } catch (IOException | ReflectiveOperationException
+                | RuntimeException | LinkageError e) {
+
+            throw new MojoExecutionException(
+                    "Error generating slug implementations", e);
+        }
+
+        getLog().info("Generated implementations for " + count
+                + " slug type(s) with layout " + layout);
+    }
+
+    private URLClassLoader createClassLoader() throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        urls.add(outputDirectory.toURI().toURL());
+        for (String element : classpathElements) {
+            urls.add(new File(element).toURI().toURL());
+        }
+
+        // Slug itself must come from the plugin's loader, or the interfaces
+        // we load won't look like slugs to the SlugBox we're using.
+        return new URLClassLoader(
+                urls.toArray(new URL[urls.size()]),
+                Slug.class.getClassLoader());
+    }
+
+    private List<String> findClassNames() throws IOException {
+        Path root = outputDirectory.toPath();
+
+        try (Stream<Path> files = Files.walk(root)) {
+            return files
+                    .map(p -> root.relativize(p).toString())
+                    .filter(p -> p.endsWith(".class"))
+                    .filter(p -> !p.contains("$$Impl"))
+                    .map(p -> p.substring(0, p.length() - 6)
+                            .replace(File.separatorChar, '.'))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isSlugInterface(Class<?> type) {
+        return type.isInterface()
+                && type != Slug.class
+                && Modifier.isPublic(type.getModifiers())
+                && Slug.class.isAssignableFrom(type);
+    }
+
+    private void write(String name, byte[] bytes) throws IOException {
+        File file = new File(
+                outputDirectory,
+                name.replace('.', File.separatorChar) + ".class");
+
+        Files.write(file.toPath(), bytes);
+    }
+}